@@ -0,0 +1,55 @@
+/*
+ * This library is free software; you can redistribute it and/or modify it under the terms of
+ * the GNU Lesser General Public License as published by the Free Software Foundation.
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ */
+
+package timeseries.benchmark;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.IOException;
+
+/**
+ * Runs the benchmarks with the GC profiler, so every result also reports the allocation rate.
+ * All the usual JMH command line options can be used, e.g. a regular expression to select benchmarks or
+ * -p size=1000 to select the series size.
+ */
+public class Benchmarks {
+    public static void main(String args[]) throws RunnerException, CommandLineOptionException, IOException {
+        CommandLineOptions commandLine = new CommandLineOptions(args);
+        Options options = new OptionsBuilder()
+                .parent(commandLine)
+                .addProfiler(GCProfiler.class)
+                .build();
+        Runner runner = new Runner(options);
+        //The listing and help options don't run anything, like in org.openjdk.jmh.Main
+        if(commandLine.shouldHelp()) {
+            commandLine.showHelp();
+        }
+        else if(commandLine.shouldList()) {
+            runner.list();
+        }
+        else if(commandLine.shouldListWithParams()) {
+            runner.listWithParams(commandLine);
+        }
+        else if(commandLine.shouldListProfilers()) {
+            commandLine.listProfilers();
+        }
+        else if(commandLine.shouldListResultFormats()) {
+            commandLine.listResultFormats();
+        }
+        else {
+            runner.run();
+        }
+    }
+}
@@ -0,0 +1,41 @@
+/*
+ * This library is free software; you can redistribute it and/or modify it under the terms of
+ * the GNU Lesser General Public License as published by the Free Software Foundation.
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ */
+
+package timeseries.benchmark;
+
+import timeseries.RegularlyTimeSeries;
+import timeseries.storage.ArrayStorage;
+
+import java.util.Random;
+
+/**
+ * Creates the time series for the benchmarks.
+ */
+final class Data {
+
+    private Data() {
+    }
+
+    /**
+     * Creates a positive geometric random walk, so that the multiplicative methods work as well.
+     * @param size amount of DataPoints
+     * @return the random walk
+     */
+    static RegularlyTimeSeries randomWalk(int size) {
+        Random random = new Random(42);
+        RegularlyTimeSeries ts = new RegularlyTimeSeries(1, 0, new ArrayStorage(size));
+        double x = 1000;
+        ts.addFirstDataPoint(0, x);
+        for(int i = 1; i < size; i++) {
+            x *= Math.exp(0.0001 * random.nextGaussian());
+            ts.addX(x);
+        }
+        return ts;
+    }
+}
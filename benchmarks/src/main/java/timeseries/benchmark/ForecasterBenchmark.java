@@ -0,0 +1,94 @@
+/*
+ * This library is free software; you can redistribute it and/or modify it under the terms of
+ * the GNU Lesser General Public License as published by the Free Software Foundation.
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ */
+
+package timeseries.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import timeseries.RegularlyTimeSeries;
+import timeseries.regularly_timeseries.evaluation.ErrorMetrics;
+import timeseries.regularly_timeseries.evaluation.Evaluator;
+import timeseries.regularly_timeseries.forecasters.exponential_smoothing.DampedTrendMethod;
+import timeseries.regularly_timeseries.forecasters.exponential_smoothing.ExponentialTrendMethod;
+import timeseries.regularly_timeseries.forecasters.exponential_smoothing.HoltsLinearTrendMethod;
+import timeseries.regularly_timeseries.forecasters.exponential_smoothing.MultiplicativeDampedTrend;
+import timeseries.regularly_timeseries.forecasters.exponential_smoothing.SimpleExponentialSmoothing;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks the exponential smoothing methods and the evaluation of their results.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ForecasterBenchmark {
+
+    @Param({"1000", "10000", "100000", "1000000", "10000000"})
+    private int size;
+
+    @Param({"12"})
+    private int h;
+
+    private RegularlyTimeSeries ts;
+    private RegularlyTimeSeries model;
+
+    @Setup
+    public void setup() {
+        this.ts = Data.randomWalk(this.size);
+        this.model = HoltsLinearTrendMethod.fit(this.ts, 0.8, 0.2, 0);
+    }
+
+    @Benchmark
+    public RegularlyTimeSeries simpleExponentialSmoothing() {
+        return SimpleExponentialSmoothing.fit(this.ts, 0.8, this.h);
+    }
+
+    @Benchmark
+    public RegularlyTimeSeries holtsLinearTrendMethod() {
+        return HoltsLinearTrendMethod.fit(this.ts, 0.8, 0.2, this.h);
+    }
+
+    @Benchmark
+    public RegularlyTimeSeries dampedTrendMethod() {
+        return DampedTrendMethod.fit(this.ts, 0.8, 0.2, 0.9, this.h);
+    }
+
+    @Benchmark
+    public RegularlyTimeSeries exponentialTrendMethod() {
+        return ExponentialTrendMethod.fit(this.ts, 0.8, 0.2, this.h);
+    }
+
+    @Benchmark
+    public RegularlyTimeSeries multiplicativeDampedTrend() {
+        return MultiplicativeDampedTrend.fit(this.ts, 0.8, 0.2, 0.9, this.h);
+    }
+
+    @Benchmark
+    public double meanSquaredError() {
+        return Evaluator.MeanSquaredError(this.ts, this.model);
+    }
+
+    @Benchmark
+    public ErrorMetrics evaluate() {
+        return Evaluator.evaluate(this.ts, this.model);
+    }
+}
@@ -0,0 +1,106 @@
+/*
+ * This library is free software; you can redistribute it and/or modify it under the terms of
+ * the GNU Lesser General Public License as published by the Free Software Foundation.
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ */
+
+package timeseries.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import timeseries.RegularlyTimeSeries;
+import timeseries.TimeSeries;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks the access paths and the basic operations of a time series.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TimeSeriesBenchmark {
+
+    @Param({"1000", "10000", "100000", "1000000", "10000000"})
+    private int size;
+
+    private RegularlyTimeSeries ts;
+
+    @Setup
+    public void setup() {
+        this.ts = Data.randomWalk(this.size);
+    }
+
+    /**
+     * Reads every x-value by index
+     */
+    @Benchmark
+    public double getX() {
+        double sum = 0;
+        for(long i = 0; i < this.size; i++) {
+            sum += this.ts.getX(i);
+        }
+        return sum;
+    }
+
+    /**
+     * Reads every x-value by t
+     */
+    @Benchmark
+    public double getXAtT() {
+        double sum = 0;
+        for(long i = 0; i < this.size; i++) {
+            sum += this.ts.getX((double) i);
+        }
+        return sum;
+    }
+
+    @Benchmark
+    public long size() {
+        return this.ts.size();
+    }
+
+    @Benchmark
+    public double mean() {
+        return this.ts.mean();
+    }
+
+    @Benchmark
+    public double variance() {
+        return this.ts.variance();
+    }
+
+    /**
+     * setX invalidates the cached statistics, so variance has to walk the time series again.
+     */
+    @Benchmark
+    public double varianceAfterSetX() {
+        this.ts.setX(0, this.ts.getX(0));
+        return this.ts.variance();
+    }
+
+    @Benchmark
+    public TimeSeries subSeries() {
+        return this.ts.subSeries(this.size / 4L, 3L * this.size / 4);
+    }
+
+    @Benchmark
+    public TimeSeries divert() {
+        return this.ts.divert();
+    }
+}
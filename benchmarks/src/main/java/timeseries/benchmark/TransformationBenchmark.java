@@ -0,0 +1,82 @@
+/*
+ * This library is free software; you can redistribute it and/or modify it under the terms of
+ * the GNU Lesser General Public License as published by the Free Software Foundation.
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ */
+
+package timeseries.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import timeseries.RegularlyTimeSeries;
+import timeseries.regularly_timeseries.filter.MovingAverageFilter;
+import timeseries.regularly_timeseries.normalization.Normalizer;
+import timeseries.regularly_timeseries.transformation.PAA;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks the filters, transformations and normalizations.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TransformationBenchmark {
+
+    @Param({"1000", "10000", "100000", "1000000", "10000000"})
+    private int size;
+
+    @Param({"16"})
+    private int windowSize;
+
+    private RegularlyTimeSeries ts;
+    private MovingAverageFilter filter;
+    private PAA paa;
+
+    @Setup
+    public void setup() {
+        this.ts = Data.randomWalk(this.size);
+        this.filter = new MovingAverageFilter(this.windowSize);
+        this.paa = new PAA(this.windowSize);
+    }
+
+    @Benchmark
+    public RegularlyTimeSeries movingAverageFilter() {
+        return this.filter.sFilter(this.ts);
+    }
+
+    @Benchmark
+    public RegularlyTimeSeries paaDimensionReduction() {
+        return this.paa.dimensionReduction(this.ts);
+    }
+
+    @Benchmark
+    public RegularlyTimeSeries paaApproximation() {
+        return this.paa.approximation(this.ts);
+    }
+
+    @Benchmark
+    public RegularlyTimeSeries minMaxNormalization() {
+        return Normalizer.minMaxNormalization(this.ts);
+    }
+
+    @Benchmark
+    public RegularlyTimeSeries zScoreNormalization() {
+        return Normalizer.zScoreNormalization(this.ts);
+    }
+}
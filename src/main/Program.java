@@ -9,7 +9,6 @@
 
 package main;
 
-import com.sun.org.apache.xpath.internal.operations.Mult;
 import timeseries.RegularlyTimeSeries;
 import timeseries.regularly_timeseries.evaluation.Evaluator;
 import timeseries.regularly_timeseries.forecasters.exponential_smoothing.*;
@@ -49,10 +48,11 @@ public class Program {
         ts2.addX(41.39);
         ts2.addX(41.60);
         //System.out.println(HoltsLinearTrendMethod.forecast(ts2,0.8,0.2,1));
-        System.out.println(HoltsLinearTrendMethod.fit(ts2, 0.8, 0.2, 0));
+        double[] holt = new ParameterOptimizer().optimize(ts2, ExponentialSmoothingMethod.HOLTS_LINEAR);
+        System.out.println(HoltsLinearTrendMethod.fit(ts2, holt[0], holt[1], 0));
         //System.out.println(ExponentialTrendMethod.fit(ts2, 0.8, 0.2, 5));
         //System.out.println(DampedTrendMethod.fit(ts2,0.8,0.2,0.85,5));
         //System.out.println(MultiplicativeDampedTrend.fit(ts2,0.8,0.2,0.98,5));
-        System.out.println(Evaluator.RootMeanSquaredError(ts2, HoltsLinearTrendMethod.fit(ts2, 0.98, 0,0)));
+        System.out.println(Evaluator.RootMeanSquaredError(ts2, HoltsLinearTrendMethod.fit(ts2, holt[0], holt[1], 0)));
     }
 }
@@ -159,7 +159,7 @@ public class DataPoint {
      * @return the euclidean distance
      */
     double euclideanDistanceGradient(DataPoint other) {
-        return Math.sqrt((this.gradient()-other.gradient())*(this.gradient()-other.gradient()));
+        return Math.abs(this.gradient()-other.gradient());
     }
 
 
@@ -0,0 +1,319 @@
+/*
+ * This library is free software; you can redistribute it and/or modify it under the terms of
+ * the GNU Lesser General Public License as published by the Free Software Foundation.
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ */
+
+package timeseries;
+
+import timeseries.storage.ArrayStorage;
+import timeseries.storage.Storage;
+import timeseries.storage.ViewStorage;
+
+/**
+ * Represents an irregular time series. The spacing between the DataPoints is different, so the t-values are
+ * stored in a second column next to the x-values. Both columns are primitive storages, sorted by t.
+ * Finding a t-value costs O(log n) by binary search.
+ * DataPoints are usually appended in order in O(1). A DataPoint, which arrives late, is inserted at its place:
+ * the binary search finds the place and the younger DataPoints move one position back, which costs
+ * O(amount of younger DataPoints). So slightly out-of-order data is still cheap.
+ */
+public class IrregularTimeSeries extends TimeSeries {
+    /**
+     * The t-values, sorted ascending
+     */
+    private final Storage times;
+
+    /**
+     * Initialize an empty IrregularTimeSeries
+     */
+    public IrregularTimeSeries() {
+        super();
+        this.times = new ArrayStorage();
+    }
+
+    /**
+     * Initialize an IrregularTimeSeries on top of existing storages.
+     * The t-values are checked in one pass, because every binary search depends on their order.
+     * @param times keeps the t-values, they have to be sorted ascending and mustn't be NaN
+     * @param values keeps the x-values
+     */
+    public IrregularTimeSeries(Storage times, Storage values) {
+        this(checkSorted(times), values, true);
+    }
+
+    /**
+     * Initialize an IrregularTimeSeries on top of existing storages, whose t-values are known to be sorted
+     * @param times keeps the sorted t-values
+     * @param values keeps the x-values
+     * @param sorted only distinguishes this constructor
+     */
+    private IrregularTimeSeries(Storage times, Storage values, boolean sorted) {
+        super(values);
+        if(times.size() != values.size()) {
+            throw new IllegalArgumentException("There are " + times.size() + " t-values, but " + values.size()
+                    + " x-values");
+        }
+        this.times = times;
+    }
+
+    /**
+     * Throws an IllegalArgumentException, if the t-values aren't sorted ascending or contain NaN
+     * @param times the t-values
+     * @return times
+     */
+    private static Storage checkSorted(Storage times) {
+        double[] previous = {Double.NEGATIVE_INFINITY};
+        long[] index = {0};
+        times.forEach(0, times.size(), t -> {
+            if(!(t >= previous[0])) {
+                throw new IllegalArgumentException("The t-value " + t + " at index " + index[0]
+                        + " isn't sorted ascending");
+            }
+            previous[0] = t;
+            index[0]++;
+        });
+        return times;
+    }
+
+    /**
+     * Gets the storage of the t-values.
+     * @return the storage
+     */
+    public Storage getTimes() {
+        return times;
+    }
+
+    /**
+     * Adds a new DataPoint. If t is smaller than the last t-value, the DataPoint is inserted at its place.
+     * DataPoints with the same t-value keep the order, in which they were added.
+     * @param nt t-value, not NaN
+     * @param nx x-value
+     */
+    public void add(double nt, double nx) {
+        if(Double.isNaN(nt)) {
+            //NaN can't be sorted, it would break every binary search
+            throw new IllegalArgumentException("The t-value is NaN");
+        }
+        long size = this.times.size();
+        if(size == 0 || nt >= this.times.get(size-1)) {
+            this.times.add(nt);
+            super.append(nx);
+        }
+        else {
+            long index = this.upperBound(nt);
+            this.times.insert(index, nt);
+            super.insert(index, nx);
+        }
+    }
+
+    /**
+     * Gets the t-value at index "index"
+     * @param index
+     * @return t-value
+     */
+    @Override
+    public double getT(long index) {
+        return this.times.get(index);
+    }
+
+    /**
+     * Finds the first DataPoint at t
+     * @param t position in time series
+     * @return the index or -1, if there isn't any DataPoint at t
+     */
+    public long indexOf(double t) {
+        long index = this.lowerBound(t);
+        if(index < this.times.size() && this.times.get(index) == t) {
+            return index;
+        }
+        return -1;
+    }
+
+    /**
+     * Get the x-value at t
+     * @param t position in time series
+     * @return x-value at this position
+     */
+    public double getX(double t) {
+        long index = this.indexOf(t);
+        if(index < 0) {
+            throw new IndexOutOfBoundsException("There isn't any DataPoint at t: " + t);
+        }
+        return super.storage.get(index);
+    }
+
+    /**
+     * Interpolates the x-value at t linearly between the DataPoints before and after t.
+     * @param t position between the first and the last t-value
+     * @return the interpolated x-value
+     */
+    public double interpolate(double t) {
+        long size = this.times.size();
+        if(size == 0 || t < this.times.get(0) || t > this.times.get(size-1)) {
+            throw new IndexOutOfBoundsException("t: " + t + " is outside of the time series");
+        }
+        long index = this.lowerBound(t);
+        double t1 = this.times.get(index);
+        if(t1 == t) {
+            return super.storage.get(index);
+        }
+        double t0 = this.times.get(index-1);
+        double x0 = super.storage.get(index-1);
+        return x0 + (super.storage.get(index)-x0)*(t-t0)/(t1-t0);
+    }
+
+    /**
+     * Creates a sub IrregularTimeSeries, which contains the DataPoints with ft <= t <= tt.
+     * The borders are found by binary search, so it costs O(log n). The sub series is a read-only view.
+     * @param ft from t
+     * @param tt to t (including this one)
+     * @return
+     */
+    @Override
+    public IrregularTimeSeries subSeries(double ft, double tt) {
+        return this.subSeries(this.lowerBound(ft), this.upperBound(tt)-1);
+    }
+
+    /**
+     * Creates a sub IrregularTimeSeries
+     * The sub series is a read-only view, creating it costs O(1). Use copy to get an independent time series.
+     * @param fIndex from index
+     * @param tIndex to index (including this one)
+     * @return
+     */
+    @Override
+    public IrregularTimeSeries subSeries(long fIndex, long tIndex) {
+        long from = Math.max(fIndex, 0);
+        long to = Math.min(tIndex, this.size()-1);
+        long length = Math.max(to-from+1, 0);
+        if(length == 0) {
+            from = 0;
+        }
+        return new IrregularTimeSeries(new ViewStorage(this.times, from, length),
+                new ViewStorage(super.storage, from, length), true);
+    }
+
+    /**
+     * Creates a copy of the IrregularTimeSeries, which is totally independent from the original.
+     * @return the copy
+     */
+    @Override
+    public IrregularTimeSeries copy() {
+        return new IrregularTimeSeries(this.times.copy(), super.storage.copy(), true);
+    }
+
+    /**
+     * Calculate a diverted time series of the original time series..
+     * Every DataPoint gets the gradient to the next DataPoint, the last one the gradient to the previous one..
+     * @return the diverted time series
+     */
+    @Override
+    public IrregularTimeSeries divert() {
+        double[] t = this.timesToArray();
+        double[] x = this.toArray();
+        int size = x.length;
+        if(size == 1) {
+            x[0] = 0;
+        }
+        else if(size > 1) {
+            double last = (x[size-1]-x[size-2])/(t[size-1]-t[size-2]);
+            for(int i = 0; i < size-1; i++) {
+                x[i] = (x[i+1]-x[i])/(t[i+1]-t[i]);
+            }
+            x[size-1] = last;
+        }
+        return new IrregularTimeSeries(ArrayStorage.wrap(t, size), ArrayStorage.wrap(x, size), true);
+    }
+
+    /**
+     * Resamples the time series into a RegularlyTimeSeries from the first to the last t-value.
+     * Every tick gets the linear interpolation of the DataPoints around it. Ticks and DataPoints are merged in a
+     * single pass, so it costs O(n + ticks).
+     * @param spacing the spacing of the regularly time series
+     * @return the regularly time series
+     */
+    public RegularlyTimeSeries resample(double spacing) {
+        if(!(spacing > 0)) {
+            throw new IllegalArgumentException("Illegal spacing: " + spacing);
+        }
+        double[] t = this.timesToArray();
+        double[] x = this.toArray();
+        if(t.length == 0) {
+            return new RegularlyTimeSeries(spacing);
+        }
+        double t0 = t[0];
+        long ticks = (long) Math.floor((t[t.length-1]-t0)/spacing + 1e-9) + 1;
+        if(ticks > Integer.MAX_VALUE - 8) {
+            throw new IllegalArgumentException("Too many ticks for the spacing: " + spacing);
+        }
+        ArrayStorage values = new ArrayStorage((int) ticks);
+        int i = 0;
+        for(long k = 0; k < ticks; k++) {
+            double tick = t0 + k*spacing;
+            while(i < t.length-1 && t[i+1] <= tick) {
+                i++;
+            }
+            if(i == t.length-1 || t[i] == tick) {
+                values.add(x[i]);
+            }
+            else {
+                values.add(x[i] + (x[i+1]-x[i])*(tick-t[i])/(t[i+1]-t[i]));
+            }
+        }
+        return new RegularlyTimeSeries(spacing, t0, values);
+    }
+
+    /**
+     * Copies all t values into a new array.
+     * @return the t values
+     */
+    public double[] timesToArray() {
+        long size = this.size();
+        if(size > Integer.MAX_VALUE) {
+            throw new IllegalStateException("The time series is too large for an array");
+        }
+        double[] t = new double[(int) size];
+        this.times.copyTo(0, t, 0, t.length);
+        return t;
+    }
+
+    /**
+     * Finds the first index with a t-value >= t
+     */
+    private long lowerBound(double t) {
+        long low = 0;
+        long high = this.times.size();
+        while(low < high) {
+            long mid = (low + high) >>> 1;
+            if(this.times.get(mid) < t) {
+                low = mid + 1;
+            }
+            else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * Finds the first index with a t-value > t
+     */
+    private long upperBound(double t) {
+        long low = 0;
+        long high = this.times.size();
+        while(low < high) {
+            long mid = (low + high) >>> 1;
+            if(this.times.get(mid) <= t) {
+                low = mid + 1;
+            }
+            else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+}
@@ -9,18 +9,38 @@
 
 package timeseries;
 
+import timeseries.regularly_timeseries.transformation.Differencing;
+import timeseries.storage.ArrayStorage;
+import timeseries.storage.CompressedStorage;
+import timeseries.storage.SeriesFile;
+import timeseries.storage.Storage;
+import timeseries.storage.ViewStorage;
+
+import java.io.IOException;
+import java.nio.file.Path;
+
 /**
  * Created by apolol92 on 20.08.15.
  * Represents a regulary time series. Regulary time series has got a constant spacing between the data points.
  * The standard spacing in this class is 1.
  * You can change the spacing by the initialization.
+ * Because of the constant spacing, the t-values are never stored. They are calculated from t0 and the spacing.
  */
 public class RegularlyTimeSeries extends TimeSeries {
+    /**
+     * The maximum distance between a t-value and the next tick (in spacings), so that the t-value still belongs
+     * to this tick. It absorbs rounding errors of (t - t0) / spacing.
+     */
+    private static final double INDEX_TOLERANCE = 1e-9;
     /**
      * Tell you the spacing between 2 Data Points on the t-axes.
      * In a regulary time series the spacing is constant.
      */
     private final double spacing;
+    /**
+     * The t-value of the first DataPoint.
+     */
+    private double t0;
 
     /**
      * Initialize an empty RegularlytTimeSeries with default spacing 1
@@ -52,26 +72,44 @@ public class RegularlyTimeSeries extends TimeSeries {
     }
 
     /**
-     * Gets the spacing between the ticks
-     * @return spacing
+     * Initialize a RegularyTimeSeries on top of an existing storage.
+     * @param nSpacing specifics the spacing beetween every observation/DataPoint
+     * @param nt t value of the first DataPoint in the storage
+     * @param storage keeps the x-values
      */
-    public double getSpacing() {
-        return spacing;
+    public RegularlyTimeSeries(double nSpacing, double nt, Storage storage) {
+        super(storage);
+        this.spacing = nSpacing;
+        this.t0 = nt;
     }
 
     /**
-     * Counts the amount of DataPoints
-     * @return the amount of DataPoints
+     * Opens a time series, which was saved by save, read-only.
+     * The values are memory-mapped, so even large files open instantly and share the page cache with other
+     * processes. Methods, which change the time series, throw an UnsupportedOperationException.
+     * @param path the file
+     * @return the time series
+     * @throws IOException if the file can't be read or isn't a time series file
      */
-    @Override
-    public long size() {
-        long i = 0;
-        DataPoint walker = this.root;
-        while(walker!=null) {
-            walker = walker.getNextDataPoint();
-            i++;
-        }
-        return i;
+    public static RegularlyTimeSeries open(Path path) throws IOException {
+        return SeriesFile.open(path);
+    }
+
+    /**
+     * Saves the time series into a binary file (see SeriesFile)
+     * @param path the file
+     * @throws IOException if the file can't be written
+     */
+    public void save(Path path) throws IOException {
+        SeriesFile.write(this, path);
+    }
+
+    /**
+     * Gets the spacing between the ticks
+     * @return spacing
+     */
+    public double getSpacing() {
+        return spacing;
     }
 
     /**
@@ -80,9 +118,9 @@ public class RegularlyTimeSeries extends TimeSeries {
      * @param nx x-value
      */
     public void addFirstDataPoint(double nt, double nx) {
-        if(super.root==null) {
-            super.root = new DataPoint(nt, nx);
-            super.last = super.root;
+        if(super.storage.size()==0) {
+            this.t0 = nt;
+            super.append(nx);
         }
     }
 
@@ -93,13 +131,58 @@ public class RegularlyTimeSeries extends TimeSeries {
      * @param nx x-value
      */
     public void addX(double nx) {
-        if(super.root!=null) {
-            super.last.setNextDataPoint(new DataPoint(super.last.getT() + this.spacing, nx));
-            super.last = super.last.getNextDataPoint();
-        } else {
-            super.root = new DataPoint(0, nx);
-            super.last = super.root;
+        if(super.storage.size()==0) {
+            this.t0 = 0;
         }
+        super.append(nx);
+    }
+
+    /**
+     * Gets the t-value at index "index"
+     * @param index
+     * @return t-value
+     */
+    @Override
+    public double getT(long index) {
+        if(index < 0 || index >= this.size()) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + this.size());
+        }
+        return this.t0 + index*this.spacing;
+    }
+
+    /**
+     * Gets the gradient at index position "index".
+     * Because of the constant spacing, it doesn't need to look at the t-values.
+     * @param index
+     * @return gradient
+     */
+    @Override
+    public double getGradient(long index) {
+        long size = this.size();
+        if(index+1 < size && index >= 0) {
+            return (super.storage.get(index+1)-super.storage.get(index))/this.spacing;
+        }
+        else if(index > 0 && index < size) {
+            return (super.storage.get(index)-super.storage.get(index-1))/this.spacing;
+        }
+        else if(index == 0 && size == 1) {
+            return 0;
+        }
+        throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+    }
+
+    /**
+     * Calculates the index of the DataPoint at t via (t - t0) / spacing.
+     * @param t position in time series
+     * @return the index or -1, if there isn't any DataPoint at t
+     */
+    public long indexOf(double t) {
+        double position = (t - this.t0) / this.spacing;
+        long index = Math.round(position);
+        if(index < 0 || index >= this.size() || Math.abs(position - index) > INDEX_TOLERANCE) {
+            return -1;
+        }
+        return index;
     }
 
     /**
@@ -108,49 +191,31 @@ public class RegularlyTimeSeries extends TimeSeries {
      * @return x-value at this position
      */
     public double getX(double t) {
-        DataPoint walker = this.root;
-        double currentT = this.root.getT();
-        while(walker!=null) {
-            if(currentT==t) {
-                return walker.getX();
-            }
-            walker = walker.getNextDataPoint();
-            currentT+=this.spacing;
+        long index = this.indexOf(t);
+        if(index < 0) {
+            throw new IndexOutOfBoundsException("There isn't any DataPoint at t: " + t);
         }
-        return walker.getX();   //Throw Exception
+        return super.storage.get(index);
     }
 
 
     /**
-     * Creates a sub RegularyTimeSeries.
+     * Creates a sub RegularyTimeSeries, which contains the DataPoints with ft <= t <= tt.
+     * The sub series is a read-only view, creating it costs O(1). Use copy to get an independent time series.
      * @param ft from t
      * @param tt to t (including this one)
      * @return
      */
     @Override
     public RegularlyTimeSeries subSeries(double ft, double tt) {
-        RegularlyTimeSeries sub = new RegularlyTimeSeries(this.getSpacing());
-        double t = 0;
-        DataPoint walker = this.root;
-        boolean firstElemenet = true;
-        while(walker!=null) {
-            if(t>=ft & t <= tt) {
-                if(firstElemenet) {
-                    sub.addFirstDataPoint(walker.getT(),walker.getX());
-                    firstElemenet = false;
-                }
-                else {
-                    sub.addX(walker.getX());
-                }
-            }
-            t+=this.spacing;
-            walker = walker.getNextDataPoint();
-        }
-        return sub;
+        long fIndex = (long) Math.ceil((ft - this.t0) / this.spacing - INDEX_TOLERANCE);
+        long tIndex = (long) Math.floor((tt - this.t0) / this.spacing + INDEX_TOLERANCE);
+        return this.subSeries(fIndex, tIndex);
     }
 
     /**
      * Creates a sub RegularyTimeSeries
+     * The sub series is a read-only view, creating it costs O(1). Use copy to get an independent time series.
      * @param fIndex from index
      * @param tIndex to index (including this one)
      * @return
@@ -158,27 +223,32 @@ public class RegularlyTimeSeries extends TimeSeries {
 
     @Override
     public RegularlyTimeSeries subSeries(long fIndex, long tIndex) {
-        RegularlyTimeSeries sub = new RegularlyTimeSeries(this.getSpacing());
-        long i = 0;
-        DataPoint walker = this.root;
-        boolean firstElement = true;
-        while(walker!=null) {
-            if(i>=fIndex & i <= tIndex) {
-                if (firstElement) {
-                    sub.addFirstDataPoint(walker.getT(),walker.getX());
-                    firstElement = false;
-                }
-                else {
-                    sub.addX(walker.getX());
-                }
-            }
-            else if(i>tIndex) {
-                break;
-            }
-            i++;
-            walker = walker.getNextDataPoint();
+        long from = Math.max(fIndex, 0);
+        long to = Math.min(tIndex, this.size()-1);
+        if(from > to) {
+            return new RegularlyTimeSeries(this.spacing, 0, new ViewStorage(super.storage, 0, 0));
         }
-        return sub;
+        return new RegularlyTimeSeries(this.spacing, this.getT(from), new ViewStorage(super.storage, from, to-from+1));
+    }
+
+    /**
+     * Creates a copy of the RegularyTimeSeries, which is totally independent from the original.
+     * The copy can be changed, even if the original is a read-only view or file.
+     * @return the copy
+     */
+    @Override
+    public RegularlyTimeSeries copy() {
+        return new RegularlyTimeSeries(this.spacing, this.t0, super.storage.copy());
+    }
+
+    /**
+     * Creates an immutable, compressed copy of the RegularyTimeSeries (see CompressedStorage).
+     * Slowly changing values need much less memory. Sequential reads and the statistics decode the values
+     * in a streaming fashion, a random access has to decode a block of values.
+     * @return the compressed copy
+     */
+    public RegularlyTimeSeries compress() {
+        return new RegularlyTimeSeries(this.spacing, this.t0, new CompressedStorage(super.storage));
     }
 
     /**
@@ -187,24 +257,15 @@ public class RegularlyTimeSeries extends TimeSeries {
      * If you have got a linear trend, divert onetimes..
      * If you have got a quadratic trend, divert twotimes..
      * If you have got a n trend, divert n-times..
+     * Higher-order, seasonal and central differences are offered by the Differencing transformation..
      * @return the diverted time series
      */
     @Override
     public RegularlyTimeSeries divert() {
-        RegularlyTimeSeries divertion = new RegularlyTimeSeries(this.spacing);
-        boolean firstElemenet = true;
-        DataPoint walker = this.root;
-        while(walker!=null) {
-            if(firstElemenet) {
-                divertion.addFirstDataPoint(walker.getT(),walker.gradient());
-                firstElemenet = false;
-            }
-            else {
-                divertion.addX(walker.gradient());
-            }
-            walker = walker.getNextDataPoint();
-        }
-        return divertion;
+        double[] values = this.toArray();
+        //Forward differences in place, the last DataPoint uses the backward difference (like getGradient)
+        Differencing.gradient(values, 0, values.length, this.spacing, false, values);
+        return new RegularlyTimeSeries(this.spacing, this.t0, ArrayStorage.wrap(values, values.length));
     }
 
 }
@@ -9,7 +9,8 @@
 
 package timeseries;
 
-import javax.xml.crypto.Data;
+import timeseries.storage.ArrayStorage;
+import timeseries.storage.Storage;
 
 /**
  * Created by apolol92 on 20.08.15.
@@ -19,31 +20,83 @@ import javax.xml.crypto.Data;
  * - Irregular time series: The spacing between every observation/data point is different
  * But these two types have much in common.
  * For this reason we use an abstract parent class called TimeSeries.
+ * The x-values are kept in a Storage. DataPoints are only created, if somebody asks for one.
  */
 public abstract class TimeSeries {
     /**
-     * This is a reference on the root DataPoint of the time series
+     * This is the storage of the x-values of the time series
      */
-    protected DataPoint root;
+    protected Storage storage;
     /**
-     * This is a reference on the latest DataPoint of the time series.
-     * This reference often changes.
+     * Tells you, if the cached statistics below describe the current values.
+     * Appending keeps them valid, setX invalidates them.
      */
-    protected DataPoint last;
+    private boolean statisticsValid;
+    /**
+     * The modifications of the storage, when the cached statistics were calculated.
+     * If the storage was modified since then (e.g. the parent of a view), the statistics aren't valid anymore.
+     */
+    private long statisticsModifications;
+    /**
+     * The amount of values, the cached statistics are based on.
+     */
+    private long count;
+    /**
+     * The cached sum of all values.
+     */
+    private double sum;
+    /**
+     * The cached mean of all values (Welford).
+     */
+    private double runningMean;
+    /**
+     * The cached sum of squared differences from the mean (Welford).
+     */
+    private double m2;
+    /**
+     * The cached min value.
+     */
+    private double minX;
+    /**
+     * The cached max value.
+     */
+    private double maxX;
 
     /**
-     * This standard constructor initialize the TimeSeries.
+     * This standard constructor initialize the TimeSeries with an empty ArrayStorage.
      */
     protected TimeSeries() {
-        this.root = null;
-        this.last = null;
+        this(new ArrayStorage());
+    }
+
+    /**
+     * This constructor initialize the TimeSeries with the given storage.
+     * @param storage keeps the x-values
+     */
+    protected TimeSeries(Storage storage) {
+        this.storage = storage;
+        this.statisticsValid = false;
+        if(storage.size() == 0) {
+            //Nothing to scan, so appended values can be tracked from the beginning
+            this.updateStatistics();
+        }
+    }
+
+    /**
+     * Gets the storage of the x-values.
+     * @return the storage
+     */
+    public Storage getStorage() {
+        return storage;
     }
 
     /**
      * This method counts the DataPoints in the TimeSeries.
      * @return amount of DataPoints
      */
-    public abstract long size();
+    public long size() {
+        return this.storage.size();
+    }
 
     /**
      * This method measures the length of the TimeSeries.
@@ -51,7 +104,9 @@ public abstract class TimeSeries {
      * @return
      */
     public double length() {
-        return Math.sqrt((last.getT()-root.getT()*(last.getT()-root.getT())));
+        double firstT = this.getT(0);
+        double lastT = this.getT(this.size()-1);
+        return Math.sqrt((lastT-firstT*(lastT-firstT)));
     }
 
     /**
@@ -59,49 +114,135 @@ public abstract class TimeSeries {
      * @param index
      * @return t-value
      */
-    public double getT(long index) {
-        DataPoint walker = this.root;
-        long i = 0;
-        while(walker!=null) {
-            if(index==i) {
-                return walker.getT();
-            }
-            walker = walker.getNextDataPoint();
-            i++;
-        }
-        return walker.getT();   //Throw Exception
-    }
+    public abstract double getT(long index);
 
     /**
      * Gets the x value of a DataPoint at index position "index".
      */
     public double getX(long index) {
-        DataPoint walker = this.root;
-        long i =0;
-        while(walker!=null) {
-            if(index==i) {
-                return walker.getX();
-            }
-            walker = walker.getNextDataPoint();
-            i++;
+        return this.storage.get(index);
+    }
+
+    /**
+     * Sets the x value of a DataPoint at index position "index".
+     * The cached statistics will be recalculated the next time somebody asks for them.
+     * @param index
+     * @param nx the new x value
+     */
+    public void setX(long index, double nx) {
+        this.storage.set(index, nx);
+        this.statisticsValid = false;
+    }
+
+    /**
+     * Appends a x value to the storage and updates the cached statistics in O(1).
+     * @param nx the new x value
+     */
+    protected void append(double nx) {
+        this.storage.add(nx);
+        if(this.statisticsValid && this.statisticsModifications == this.storage.getModifications()) {
+            this.accumulate(nx);
+        }
+        else {
+            this.statisticsValid = false;
         }
-        return walker.getX();   //Throw Exception
     }
 
     /**
-     * Gets the x value of a DataPoint at index position "index".
+     * Inserts a x value into the storage at index "index" and updates the cached statistics in O(1).
+     * The statistics don't depend on the order of the values, so they stay valid.
+     * @param index position of the new value
+     * @param nx the new x value
+     */
+    protected void insert(long index, double nx) {
+        boolean valid = this.statisticsValid && this.statisticsModifications == this.storage.getModifications();
+        this.storage.insert(index, nx);
+        if(valid) {
+            this.accumulate(nx);
+            this.statisticsModifications = this.storage.getModifications();
+        }
+        else {
+            this.statisticsValid = false;
+        }
+    }
+
+    /**
+     * Adds one value to the cached statistics (Welford's online algorithm).
+     * @param x the new value
+     */
+    private void accumulate(double x) {
+        this.count++;
+        this.sum += x;
+        double delta = x - this.runningMean;
+        this.runningMean += delta / this.count;
+        this.m2 += delta * (x - this.runningMean);
+        if(x < this.minX) {
+            this.minX = x;
+        }
+        if(x > this.maxX) {
+            this.maxX = x;
+        }
+    }
+
+    /**
+     * Recalculates the cached statistics in a single pass, if they aren't valid.
+     */
+    private void updateStatistics() {
+        if(this.statisticsValid && this.statisticsModifications == this.storage.getModifications()) {
+            return;
+        }
+        this.count = 0;
+        this.sum = 0;
+        this.runningMean = 0;
+        this.m2 = 0;
+        this.minX = Double.POSITIVE_INFINITY;
+        this.maxX = Double.NEGATIVE_INFINITY;
+        this.storage.forEach(0, this.storage.size(), this::accumulate);
+        this.statisticsValid = true;
+        this.statisticsModifications = this.storage.getModifications();
+    }
+
+    /**
+     * Gets the gradient at index position "index".
+     * It involves the next DataPoint. If there isn't any next DataPoint, the method will use the previous
+     * DataPoint instead. If there is only one DataPoint, the method will return 0.
      */
     public double getGradient(long index) {
-        DataPoint walker = this.root;
-        long i =0;
-        while(walker!=null) {
-            if(index==i) {
-                return walker.gradient();
-            }
-            walker = walker.getNextDataPoint();
-            i++;
+        long size = this.size();
+        if(index+1 < size && index >= 0) {
+            return (this.getX(index+1)-this.getX(index))/(this.getT(index+1)-this.getT(index));
+        }
+        else if(index > 0 && index < size) {
+            return (this.getX(index)-this.getX(index-1))/(this.getT(index)-this.getT(index-1));
         }
-        return walker.gradient();   //Throw Exception
+        else if(index == 0 && size == 1) {
+            return 0;
+        }
+        throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+    }
+
+    /**
+     * Copies all x values into a new array.
+     * @return the x values
+     */
+    public double[] toArray() {
+        long size = this.size();
+        if(size > Integer.MAX_VALUE) {
+            throw new IllegalStateException("The time series is too large for an array");
+        }
+        double[] values = new double[(int) size];
+        this.storage.copyTo(0, values, 0, values.length);
+        return values;
+    }
+
+    /**
+     * Creates a DataPoint of the values at index position "index".
+     * The DataPoint is only a copy, changing it won't change the time series.
+     * @param index
+     * @return a DataPoint
+     */
+    public DataPoint getDataPoint(long index) {
+        return new DataPoint(this.getT(index), this.getX(index));
     }
 
 
@@ -110,15 +251,8 @@ public abstract class TimeSeries {
      * @return the max value
      */
     public double max() {
-        DataPoint walker = this.root;
-        double max = Double.MIN_VALUE;
-        while(walker !=null) {
-            if(walker.getX()>max) {
-                max = walker.getX();
-            }
-            walker = walker.getNextDataPoint();
-        }
-        return max;
+        this.updateStatistics();
+        return this.maxX;
     }
 
     /**
@@ -126,15 +260,17 @@ public abstract class TimeSeries {
      * @return the min value
      */
     public double min() {
-        DataPoint walker = this.root;
-        double min = Double.MAX_VALUE;
-        while(walker !=null) {
-            if(walker.getX()<min) {
-                min = walker.getX();
-            }
-            walker = walker.getNextDataPoint();
-        }
-        return min;
+        this.updateStatistics();
+        return this.minX;
+    }
+
+    /**
+     * Calculates the sum of the time series
+     * @return the sum
+     */
+    public double sum() {
+        this.updateStatistics();
+        return this.sum;
     }
 
     /**
@@ -142,18 +278,11 @@ public abstract class TimeSeries {
      * @return
      */
     public double mean() {
-        double mean = 0;
-        double size = 0;
-        if(this.root!=null) {
-            //Time series contains elements
-            DataPoint walker = this.root;
-            do {
-                mean += walker.getX();
-                size++;
-            } while ((walker = walker.getNextDataPoint()) != null);
-            return mean/size;
+        this.updateStatistics();
+        if(this.count == 0) {
+            throw new IllegalStateException("The time series is empty");
         }
-        return this.root.getX();    //Throw a NullPointerException
+        return this.runningMean;
     }
 
     /**
@@ -161,14 +290,11 @@ public abstract class TimeSeries {
      * @return the variance
      */
     public double variance() {
-        double mean = this.mean();
-        double v = 0;
-        DataPoint walker = this.root;
-        while(walker!=null) {
-            v += (walker.getX()-mean)*(walker.getX()-mean);
-            walker = walker.getNextDataPoint();
+        this.updateStatistics();
+        if(this.count == 0) {
+            throw new IllegalStateException("The time series is empty");
         }
-        return v/this.size();
+        return this.m2/this.count;
     }
     /**
      * Calculates the standard deviaton of the time series
@@ -188,7 +314,7 @@ public abstract class TimeSeries {
 
     /**
      * Will create a sub time series of the current one.
-     * This sub time series is totally independent from his parent
+     * The sub time series is a read-only view, which reads through to the values of his parent.
      * @param ft from t
      * @param tt to t (including this one)
      * @return a time series from t to t
@@ -197,13 +323,19 @@ public abstract class TimeSeries {
 
     /**
      * Will create a sub time series of the current one.
-     * This sub time series is totally independent from his parent
+     * The sub time series is a read-only view, which reads through to the values of his parent.
      * @param fIndex from index
      * @param tIndex to index (including this one)
      * @return a time series from index to index
      */
     public abstract TimeSeries subSeries(long fIndex, long tIndex);
 
+    /**
+     * Will create a copy of the current time series, which is totally independent from the original.
+     * @return the copy
+     */
+    public abstract TimeSeries copy();
+
     /**
      * This method will divert the time series..
      * @return the diverted time series..
@@ -212,13 +344,10 @@ public abstract class TimeSeries {
 
     @Override
     public String toString() {
-        long i = 0;
-        DataPoint walker = this.root;
+        long size = this.size();
         StringBuilder sb = new StringBuilder("");
-        while(walker!=null) {
-            sb.append(walker.getT()+" : " + walker.getX() + "\n");
-            walker = walker.getNextDataPoint();
-            i++;
+        for(long i = 0; i < size; i++) {
+            sb.append(this.getT(i)+" : " + this.getX(i) + "\n");
         }
         return sb.toString();
     }
@@ -0,0 +1,251 @@
+/*
+ * This library is free software; you can redistribute it and/or modify it under the terms of
+ * the GNU Lesser General Public License as published by the Free Software Foundation.
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ */
+
+package timeseries;
+
+import timeseries.concurrent.RangeTask;
+import timeseries.storage.SeriesBlock;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Function;
+import java.util.function.IntConsumer;
+import java.util.function.ToDoubleBiFunction;
+import java.util.function.ToDoubleFunction;
+import java.util.function.UnaryOperator;
+
+/**
+ * Represents a panel of many regularly time series, every one with an unique id.
+ * Any operation of the library (filter, normalization, PAA, forecaster, evaluator ...) can be applied to all
+ * time series in parallel. Every time series is one task on a work-stealing fork-join pool, so long and short
+ * time series are balanced between the workers. The results are written into arrays of the caller, in the
+ * order of the time series in the collection.
+ */
+public class TimeSeriesCollection {
+    /**
+     * The ids in the order of insertion
+     */
+    private final List<String> ids;
+    /**
+     * The time series in the order of insertion
+     */
+    private final List<RegularlyTimeSeries> series;
+    /**
+     * Maps an id to the position of its time series
+     */
+    private final Map<String, Integer> positions;
+    /**
+     * The pool, which runs the operations
+     */
+    private ForkJoinPool pool;
+
+    /**
+     * Initialize an empty TimeSeriesCollection, which uses the common pool.
+     */
+    public TimeSeriesCollection() {
+        this(ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Initialize an empty TimeSeriesCollection.
+     * Use a pool like new ForkJoinPool(parallelism) to configure the parallelism.
+     * @param pool the pool, which runs the operations
+     */
+    public TimeSeriesCollection(ForkJoinPool pool) {
+        this.ids = new ArrayList<>();
+        this.series = new ArrayList<>();
+        this.positions = new HashMap<>();
+        this.pool = pool;
+    }
+
+    /**
+     * Gets the pool, which runs the operations
+     * @return the pool
+     */
+    public ForkJoinPool getPool() {
+        return pool;
+    }
+
+    /**
+     * Sets the pool, which runs the operations
+     * @param pool the new pool
+     */
+    public void setPool(ForkJoinPool pool) {
+        this.pool = pool;
+    }
+
+    /**
+     * Adds a time series. If there is already a time series with this id, it will be replaced.
+     * @param id the id
+     * @param ts the time series
+     */
+    public void put(String id, RegularlyTimeSeries ts) {
+        Integer position = this.positions.get(id);
+        if(position != null) {
+            this.series.set(position, ts);
+        }
+        else {
+            this.positions.put(id, this.series.size());
+            this.ids.add(id);
+            this.series.add(ts);
+        }
+    }
+
+    /**
+     * Counts the time series
+     * @return amount of time series
+     */
+    public int size() {
+        return this.series.size();
+    }
+
+    /**
+     * Gets the position of a time series
+     * @param id the id
+     * @return the position or -1, if there isn't any time series with this id
+     */
+    public int indexOf(String id) {
+        Integer position = this.positions.get(id);
+        return position == null ? -1 : position;
+    }
+
+    /**
+     * Gets a time series
+     * @param id the id
+     * @return the time series or null, if there isn't any time series with this id
+     */
+    public RegularlyTimeSeries get(String id) {
+        Integer position = this.positions.get(id);
+        return position == null ? null : this.series.get(position);
+    }
+
+    /**
+     * Gets the time series at a position
+     * @param index the position
+     * @return the time series
+     */
+    public RegularlyTimeSeries get(int index) {
+        return this.series.get(index);
+    }
+
+    /**
+     * Gets the id of the time series at a position
+     * @param index the position
+     * @return the id
+     */
+    public String getId(int index) {
+        return this.ids.get(index);
+    }
+
+    /**
+     * Gets all ids in the order of the time series
+     * @return unmodifiable list of ids
+     */
+    public List<String> getIds() {
+        return Collections.unmodifiableList(this.ids);
+    }
+
+    /**
+     * Runs a task for every position in parallel. The task can write its results into arrays of the caller.
+     * @param task the task, it gets the position of a time series
+     */
+    public void forEach(IntConsumer task) {
+        this.pool.invoke(new RangeTask(0, this.series.size(), task));
+    }
+
+    /**
+     * Applies an operation, which creates a new time series (e.g. a filter or a forecaster), to all time series
+     * in parallel.
+     * @param operation the operation
+     * @return a new collection with the results and the same ids
+     */
+    public TimeSeriesCollection map(UnaryOperator<RegularlyTimeSeries> operation) {
+        RegularlyTimeSeries[] results = this.apply(operation, new RegularlyTimeSeries[this.series.size()]);
+        TimeSeriesCollection collection = new TimeSeriesCollection(this.pool);
+        for(int i = 0; i < results.length; i++) {
+            collection.put(this.ids.get(i), results[i]);
+        }
+        return collection;
+    }
+
+    /**
+     * Applies an operation to all time series in parallel.
+     * @param operation the operation
+     * @param results array for the results, at least size() long
+     * @return results
+     */
+    public <R> R[] apply(Function<? super RegularlyTimeSeries, ? extends R> operation, R[] results) {
+        this.checkResults(results.length);
+        this.forEach(i -> results[i] = operation.apply(this.series.get(i)));
+        return results;
+    }
+
+    /**
+     * Applies an operation, which calculates a number (e.g. a statistic), to all time series in parallel.
+     * @param operation the operation
+     * @param results array for the results, at least size() long
+     * @return results
+     */
+    public double[] applyAsDouble(ToDoubleFunction<? super RegularlyTimeSeries> operation, double[] results) {
+        this.checkResults(results.length);
+        this.forEach(i -> results[i] = operation.applyAsDouble(this.series.get(i)));
+        return results;
+    }
+
+    /**
+     * Applies an operation, which compares two time series with the same id (e.g. an evaluator), to all time
+     * series in parallel.
+     * @param other the second collection, it needs a time series for every id of this collection
+     * @param operation the operation, it gets the time series of this collection first
+     * @param results array for the results, at least size() long
+     * @return results
+     */
+    public double[] applyAsDouble(TimeSeriesCollection other, ToDoubleBiFunction<? super RegularlyTimeSeries,
+            ? super RegularlyTimeSeries> operation, double[] results) {
+        this.checkResults(results.length);
+        RegularlyTimeSeries[] others = new RegularlyTimeSeries[this.series.size()];
+        for(int i = 0; i < others.length; i++) {
+            others[i] = other.get(this.ids.get(i));
+            if(others[i] == null) {
+                throw new IllegalArgumentException("There isn't any time series with the id " + this.ids.get(i));
+            }
+        }
+        this.forEach(i -> results[i] = operation.applyAsDouble(this.series.get(i), others[i]));
+        return results;
+    }
+
+    /**
+     * Copies all time series into a SeriesBlock, e.g. for the batch methods of the forecasters.
+     * All time series need the same size and spacing.
+     * @return the block, series s is the time series at position s
+     */
+    public SeriesBlock toBlock() {
+        RegularlyTimeSeries[] all = this.series.toArray(new RegularlyTimeSeries[0]);
+        for(RegularlyTimeSeries ts : all) {
+            if(ts.getSpacing() != all[0].getSpacing()) {
+                throw new IllegalStateException("All time series need the same spacing");
+            }
+        }
+        return SeriesBlock.of(all);
+    }
+
+    /**
+     * Checks, if a result array is large enough
+     * @param length length of the result array
+     */
+    private void checkResults(int length) {
+        if(length < this.series.size()) {
+            throw new IllegalArgumentException("The results need space for " + this.series.size() + " values");
+        }
+    }
+}
@@ -0,0 +1,65 @@
+/*
+ * This library is free software; you can redistribute it and/or modify it under the terms of
+ * the GNU Lesser General Public License as published by the Free Software Foundation.
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ */
+
+package timeseries.concurrent;
+
+import java.util.concurrent.RecursiveAction;
+import java.util.function.IntConsumer;
+
+/**
+ * Runs a task for every index of [from, to) on a fork-join pool.
+ * The range is split in halves until a part contains at most "granularity" indices, so idle workers can steal
+ * the other halves.
+ */
+public class RangeTask extends RecursiveAction {
+    private static final long serialVersionUID = 1L;
+
+    private final int from;
+    private final int to;
+    private final int granularity;
+    private final IntConsumer task;
+
+    /**
+     * Initialize a RangeTask, which splits the range down to single indices.
+     * @param from first index
+     * @param to last index (excluding this one)
+     * @param task the task for every index
+     */
+    public RangeTask(int from, int to, IntConsumer task) {
+        this(from, to, 1, task);
+    }
+
+    /**
+     * Initialize a RangeTask
+     * @param from first index
+     * @param to last index (excluding this one)
+     * @param granularity maximum amount of indices, which are processed sequentially
+     * @param task the task for every index
+     */
+    public RangeTask(int from, int to, int granularity, IntConsumer task) {
+        this.from = from;
+        this.to = to;
+        this.granularity = Math.max(granularity, 1);
+        this.task = task;
+    }
+
+    @Override
+    protected void compute() {
+        if(this.to - this.from <= this.granularity) {
+            for(int i = this.from; i < this.to; i++) {
+                this.task.accept(i);
+            }
+        }
+        else {
+            int mid = (this.from + this.to) >>> 1;
+            invokeAll(new RangeTask(this.from, mid, this.granularity, this.task),
+                    new RangeTask(mid, this.to, this.granularity, this.task));
+        }
+    }
+}
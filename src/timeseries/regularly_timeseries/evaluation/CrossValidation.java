@@ -0,0 +1,221 @@
+/*
+ * This library is free software; you can redistribute it and/or modify it under the terms of
+ * the GNU Lesser General Public License as published by the Free Software Foundation.
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ */
+
+package timeseries.regularly_timeseries.evaluation;
+
+import timeseries.RegularlyTimeSeries;
+import timeseries.concurrent.RangeTask;
+import timeseries.regularly_timeseries.forecasters.exponential_smoothing.OnlineForecaster;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Supplier;
+
+/**
+ * Time series cross-validation (backtesting) of forecasters with rolling origins.
+ * At every origin the forecaster has seen the observations before the origin and forecasts the next h
+ * observations. The errors are collected separately for every horizon 1..h.
+ * An expanding window uses all observations before the origin. The forecaster keeps its state from one origin to
+ * the next one and only sees the new observations, so an origin costs O(step) updates and not a full refit.
+ * A rolling window only uses the last "window" observations, so the forecaster is reset and updated with them
+ * at every origin.
+ * The (series, model, origins) tasks run on a work-stealing fork-join pool. There isn't any time series per
+ * fold, the forecasters read directly from the values.
+ * The MASE of every horizon is scaled by the in-sample one-step naive MAE of the whole series (pooled over all
+ * series), not by the differences between the observations of successive origins, which would be a lag-"step"
+ * naive error.
+ */
+public class CrossValidation {
+    /**
+     * The smallest amount of origins, which are worth a task of their own
+     */
+    private static final int MIN_ORIGINS_PER_TASK = 32;
+
+    /**
+     * Amount of observations before the first origin
+     */
+    private final int initial;
+    /**
+     * Amount of forecast steps
+     */
+    private final int horizon;
+    /**
+     * Distance between two origins
+     */
+    private final int step;
+    /**
+     * Amount of observations, the forecaster sees at an origin, 0 for an expanding window
+     */
+    private final int window;
+    /**
+     * The pool, which runs the tasks
+     */
+    private ForkJoinPool pool;
+
+    /**
+     * Initialize a CrossValidation with an expanding window and an origin at every observation
+     * @param initial amount of observations before the first origin, at least 1
+     * @param horizon amount of forecast steps
+     */
+    public CrossValidation(int initial, int horizon) {
+        this(initial, horizon, 1, 0);
+    }
+
+    /**
+     * Initialize a CrossValidation
+     * @param initial amount of observations before the first origin, at least 1
+     * @param horizon amount of forecast steps
+     * @param step distance between two origins
+     * @param window amount of observations, the forecaster sees at an origin (rolling window),
+     *               or 0 for all observations before the origin (expanding window)
+     */
+    public CrossValidation(int initial, int horizon, int step, int window) {
+        if(initial < 1 || horizon < 1 || step < 1 || window < 0 || window > initial) {
+            throw new IllegalArgumentException("Illegal cross-validation: initial " + initial + ", horizon "
+                    + horizon + ", step " + step + ", window " + window);
+        }
+        this.initial = initial;
+        this.horizon = horizon;
+        this.step = step;
+        this.window = window;
+        this.pool = ForkJoinPool.commonPool();
+    }
+
+    /**
+     * Gets the pool, which runs the tasks
+     * @return the pool
+     */
+    public ForkJoinPool getPool() {
+        return pool;
+    }
+
+    /**
+     * Sets the pool, which runs the tasks
+     * @param pool the new pool
+     */
+    public void setPool(ForkJoinPool pool) {
+        this.pool = pool;
+    }
+
+    /**
+     * Evaluates a forecaster on a time series
+     * @param ts the time series
+     * @param model creates a new forecaster without any observation, e.g. () -> new NaiveForecaster()
+     * @return the error metrics of the horizons 1..h (index 0..h-1)
+     */
+    public ErrorMetrics[] evaluate(RegularlyTimeSeries ts, Supplier<? extends OnlineForecaster> model) {
+        return this.evaluate(Collections.singletonList(ts), Collections.singletonList(model))[0];
+    }
+
+    /**
+     * Evaluates several forecasters on several time series. The errors of a forecaster are aggregated over all
+     * time series.
+     * @param series the time series
+     * @param models create new forecasters without any observation
+     * @return the error metrics of every model (first index) and the horizons 1..h (second index)
+     */
+    public ErrorMetrics[][] evaluate(List<RegularlyTimeSeries> series,
+                                     List<? extends Supplier<? extends OnlineForecaster>> models) {
+        double[][] values = new double[series.size()][];
+        int pairs = series.size() * models.size();
+        int tasks = 0;
+        int[] segments = new int[series.size()];
+        for(int s = 0; s < series.size(); s++) {
+            values[s] = series.get(s).toArray();
+            int origins = this.origins(values[s].length);
+            int parts = Math.max(1, 4 * this.pool.getParallelism() / Math.max(pairs, 1));
+            segments[s] = Math.max(1, Math.min(parts, origins / MIN_ORIGINS_PER_TASK));
+            tasks += segments[s] * models.size();
+        }
+        //A task is a range of origins of one (series, model) pair
+        int[] taskSeries = new int[tasks];
+        int[] taskModel = new int[tasks];
+        int[] taskFrom = new int[tasks];
+        int[] taskTo = new int[tasks];
+        int t = 0;
+        for(int s = 0; s < series.size(); s++) {
+            int origins = this.origins(values[s].length);
+            for(int m = 0; m < models.size(); m++) {
+                for(int part = 0; part < segments[s]; part++) {
+                    taskSeries[t] = s;
+                    taskModel[t] = m;
+                    taskFrom[t] = (int) ((long) origins * part / segments[s]);
+                    taskTo[t] = (int) ((long) origins * (part + 1) / segments[s]);
+                    t++;
+                }
+            }
+        }
+        ErrorMetrics[][] results = new ErrorMetrics[tasks][];
+        this.pool.invoke(new RangeTask(0, tasks, task -> results[task] = this.run(values[taskSeries[task]],
+                models.get(taskModel[task]).get(), taskFrom[task], taskTo[task])));
+        //Merge in a fixed order, so the result doesn't depend on the scheduling
+        ErrorMetrics[][] metrics = new ErrorMetrics[models.size()][this.horizon];
+        for(int m = 0; m < models.size(); m++) {
+            for(int k = 0; k < this.horizon; k++) {
+                metrics[m][k] = new ErrorMetrics();
+            }
+        }
+        for(int task = 0; task < tasks; task++) {
+            for(int k = 0; k < this.horizon; k++) {
+                metrics[taskModel[task]][k].add(results[task][k]);
+            }
+        }
+        //Scale the MASE by the one-step naive errors of the series themselves
+        double naiveErrors = 0;
+        long naiveCount = 0;
+        for(double[] x : values) {
+            for(int i = 1; i < x.length; i++) {
+                naiveErrors += Math.abs(x[i] - x[i - 1]);
+            }
+            naiveCount += Math.max(x.length - 1, 0);
+        }
+        for(int m = 0; m < models.size(); m++) {
+            for(int k = 0; k < this.horizon; k++) {
+                metrics[m][k].setNaiveErrors(naiveErrors, naiveCount);
+            }
+        }
+        return metrics;
+    }
+
+    /**
+     * Counts the origins of a time series with "size" observations
+     */
+    private int origins(int size) {
+        return size <= this.initial ? 0 : (size - this.initial - 1) / this.step + 1;
+    }
+
+    /**
+     * Evaluates the origins [from, to) of one forecaster on one time series
+     */
+    private ErrorMetrics[] run(double[] x, OnlineForecaster forecaster, int from, int to) {
+        ErrorMetrics[] metrics = new ErrorMetrics[this.horizon];
+        for(int k = 0; k < this.horizon; k++) {
+            metrics[k] = new ErrorMetrics();
+        }
+        double[] forecasts = new double[this.horizon];
+        int seen = 0;
+        for(int o = from; o < to; o++) {
+            int origin = this.initial + o * this.step;
+            if(this.window > 0) {
+                forecaster.reset();
+                seen = origin - this.window;
+            }
+            for(; seen < origin; seen++) {
+                forecaster.update(x[seen]);
+            }
+            int steps = Math.min(this.horizon, x.length - origin);
+            forecaster.forecast(steps, forecasts);
+            for(int k = 0; k < steps; k++) {
+                metrics[k].add(x[origin + k], forecasts[k]);
+            }
+        }
+        return metrics;
+    }
+}
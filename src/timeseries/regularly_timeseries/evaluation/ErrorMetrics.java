@@ -0,0 +1,187 @@
+/*
+ * This library is free software; you can redistribute it and/or modify it under the terms of
+ * the GNU Lesser General Public License as published by the Free Software Foundation.
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ */
+
+package timeseries.regularly_timeseries.evaluation;
+
+/**
+ * Accumulates several error metrics in a single pass.
+ * Add pairs of observations and forecasts one at a time, e.g. when they arrive in a live system, and ask for the
+ * metrics at any time. Adding a pair costs O(1) and doesn't allocate anything.
+ */
+public class ErrorMetrics {
+    /**
+     * Amount of pairs
+     */
+    private long count;
+    /**
+     * Sum of absolute errors
+     */
+    private double absoluteErrors;
+    /**
+     * Sum of squared errors
+     */
+    private double squaredErrors;
+    /**
+     * Sum of absolute percentage errors
+     */
+    private double percentageErrors;
+    /**
+     * Sum of symmetric absolute percentage errors
+     */
+    private double symmetricPercentageErrors;
+    /**
+     * Sum of absolute errors of the naive method (the previous observation as forecast)
+     */
+    private double naiveErrors;
+    /**
+     * Amount of errors of the naive method
+     */
+    private long naiveCount;
+    /**
+     * The previous observation
+     */
+    private double previous;
+
+    /**
+     * Initialize empty ErrorMetrics
+     */
+    public ErrorMetrics() {
+        this.reset();
+    }
+
+    /**
+     * Removes all pairs
+     */
+    public void reset() {
+        this.count = 0;
+        this.absoluteErrors = 0;
+        this.squaredErrors = 0;
+        this.percentageErrors = 0;
+        this.symmetricPercentageErrors = 0;
+        this.naiveErrors = 0;
+        this.naiveCount = 0;
+        this.previous = Double.NaN;
+    }
+
+    /**
+     * Adds a pair of observation and forecast
+     * @param observation the "real" value
+     * @param forecast the estimated value
+     */
+    public void add(double observation, double forecast) {
+        double error = observation - forecast;
+        double absoluteError = Math.abs(error);
+        this.absoluteErrors += absoluteError;
+        this.squaredErrors += error * error;
+        if(absoluteError != 0) {
+            //0/0 would be NaN, a perfect forecast of 0 adds nothing (like in sMAPE)
+            this.percentageErrors += absoluteError / Math.abs(observation);
+        }
+        double denominator = Math.abs(observation) + Math.abs(forecast);
+        if(denominator != 0) {
+            this.symmetricPercentageErrors += 2 * absoluteError / denominator;
+        }
+        if(this.count > 0) {
+            this.naiveErrors += Math.abs(observation - this.previous);
+            this.naiveCount++;
+        }
+        this.previous = observation;
+        this.count++;
+    }
+
+    /**
+     * Adds all pairs of other ErrorMetrics, e.g. of another thread.
+     * The naive method isn't applied across the border of both, because their observations don't need to be
+     * neighbours.
+     * @param other the other ErrorMetrics
+     */
+    public void add(ErrorMetrics other) {
+        if(other.count == 0) {
+            return;
+        }
+        this.absoluteErrors += other.absoluteErrors;
+        this.squaredErrors += other.squaredErrors;
+        this.percentageErrors += other.percentageErrors;
+        this.symmetricPercentageErrors += other.symmetricPercentageErrors;
+        this.naiveErrors += other.naiveErrors;
+        this.naiveCount += other.naiveCount;
+        this.previous = other.previous;
+        this.count += other.count;
+    }
+
+    /**
+     * Replaces the errors of the naive method, which scale the MASE. By default they come from the added
+     * observations, this sets e.g. the in-sample one-step naive errors of the evaluated series.
+     * @param absoluteErrors sum of the absolute errors of the naive method
+     * @param count amount of these errors
+     */
+    public void setNaiveErrors(double absoluteErrors, long count) {
+        this.naiveErrors = absoluteErrors;
+        this.naiveCount = count;
+    }
+
+    /**
+     * Gets the amount of pairs
+     * @return amount of pairs
+     */
+    public long getCount() {
+        return count;
+    }
+
+    /**
+     * The mean absolute error
+     * @return the mean absolute error
+     */
+    public double meanAbsoluteError() {
+        return this.absoluteErrors / this.count;
+    }
+
+    /**
+     * The mean squared error
+     * @return the mean squared error
+     */
+    public double meanSquaredError() {
+        return this.squaredErrors / this.count;
+    }
+
+    /**
+     * The root mean squared error
+     * @return the root mean squared error
+     */
+    public double rootMeanSquaredError() {
+        return Math.sqrt(this.meanSquaredError());
+    }
+
+    /**
+     * The mean absolute percentage error in percent. It is infinite, if an observation is 0 and its forecast isn't.
+     * Pairs, where observation and forecast are 0, count as perfect forecasts.
+     * @return the mean absolute percentage error
+     */
+    public double meanAbsolutePercentageError() {
+        return 100 * this.percentageErrors / this.count;
+    }
+
+    /**
+     * The symmetric mean absolute percentage error in percent (between 0 and 200).
+     * Pairs, where observation and forecast are 0, count as perfect forecasts.
+     * @return the symmetric mean absolute percentage error
+     */
+    public double symmetricMeanAbsolutePercentageError() {
+        return 100 * this.symmetricPercentageErrors / this.count;
+    }
+
+    /**
+     * The mean absolute scaled error. The mean absolute error is scaled by the mean absolute error of the naive
+     * method (the previous observation as forecast) on the same observations, unless setNaiveErrors was used.
+     * @return the mean absolute scaled error
+     */
+    public double meanAbsoluteScaledError() {
+        return this.meanAbsoluteError() / (this.naiveErrors / this.naiveCount);
+    }
+}
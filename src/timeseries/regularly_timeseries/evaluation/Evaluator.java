@@ -19,6 +19,21 @@ import timeseries.RegularlyTimeSeries;
  */
 public class Evaluator {
 
+    /**
+     * This method calculates all error metrics in a single pass.
+     * @param observations the "real" time series
+     * @param model the estimated time series
+     * @return the error metrics
+     */
+    public static ErrorMetrics evaluate(RegularlyTimeSeries observations, RegularlyTimeSeries model) {
+        ErrorMetrics metrics = new ErrorMetrics();
+        long size = observations.size();
+        for(long i = 0; i < size; i++) {
+            metrics.add(observations.getX(i), model.getX(i));
+        }
+        return metrics;
+    }
+
     /**
      * This method calculates the mean absolute error.
      * @param observations the "real" time series
@@ -27,10 +42,11 @@ public class Evaluator {
      */
     public static double MeanAbsoluteError(RegularlyTimeSeries observations, RegularlyTimeSeries model) {
         double sum = 0;
-        for(long i = 0; i < observations.size(); i++) {
+        long size = observations.size();
+        for(long i = 0; i < size; i++) {
             sum += Math.abs(observations.getX(i)-model.getX(i));
         }
-        return sum/observations.size();
+        return sum/size;
     }
 
     /**
@@ -41,10 +57,12 @@ public class Evaluator {
      */
     public static double MeanSquaredError(RegularlyTimeSeries observations, RegularlyTimeSeries model) {
         double sum = 0;
-        for(long i = 0; i < observations.size(); i++) {
-            sum += (observations.getX(i)-model.getX(i))*(observations.getX(i)-model.getX(i));
+        long size = observations.size();
+        for(long i = 0; i < size; i++) {
+            double error = observations.getX(i)-model.getX(i);
+            sum += error*error;
         }
-        return sum/observations.size();
+        return sum/size;
     }
 
     /**
@@ -54,11 +72,6 @@ public class Evaluator {
      * @return the root mean squared error
      */
     public static double RootMeanSquaredError(RegularlyTimeSeries observations, RegularlyTimeSeries model) {
-        double sum = 0;
-        System.out.println(observations.size()+" "+model.size());
-        for(long i = 0; i < observations.size(); i++) {
-            sum += (observations.getX(i)-model.getX(i))*(observations.getX(i)-model.getX(i));
-        }
-        return Math.sqrt(sum/observations.size());
+        return Math.sqrt(MeanSquaredError(observations, model));
     }
 }
@@ -10,23 +10,42 @@
 package timeseries.regularly_timeseries.filter;
 
 import timeseries.RegularlyTimeSeries;
+import timeseries.storage.ArrayStorage;
 
 /**
  * Created by apolol92 on 20.08.15.
  * The moving average filter removes the high frequencies..
+ * Every filter runs in a single pass over the time series. A running sum is updated for every new DataPoint,
+ * so each output costs O(1) independent of the window size.
+ * The running sums can be compensated (Kahan-Babuska), if the window slides over many values with different
+ * magnitudes.
  */
 public class MovingAverageFilter {
     /**
      * The size of the filter window
      */
     private long windowSize;
+    /**
+     * Use compensated running sums?
+     */
+    private boolean compensated;
 
     /**
      * Initialize the MovingAverageFilter..
      * @param windowSize as window size
      */
     public MovingAverageFilter(long windowSize) {
-        this.windowSize = windowSize;
+        this(windowSize, false);
+    }
+
+    /**
+     * Initialize the MovingAverageFilter..
+     * @param windowSize as window size
+     * @param compensated use compensated running sums
+     */
+    public MovingAverageFilter(long windowSize, boolean compensated) {
+        this.setWindowSize(windowSize);
+        this.compensated = compensated;
     }
 
     /**
@@ -42,42 +61,211 @@ public class MovingAverageFilter {
      * @param windowSize
      */
     public void setWindowSize(long windowSize) {
+        if(windowSize < 1) {
+            throw new IllegalArgumentException("The window size has to be positive: " + windowSize);
+        }
         this.windowSize = windowSize;
     }
 
     /**
-     * Filter the time series
+     * Getter method for compensated
+     * @return true, if the running sums are compensated
+     */
+    public boolean isCompensated() {
+        return compensated;
+    }
+
+    /**
+     * Setter method for compensated
+     * @param compensated
+     */
+    public void setCompensated(boolean compensated) {
+        this.compensated = compensated;
+    }
+
+    /**
+     * Filter the time series with a simple moving average.
+     * The DataPoint i gets the mean of the window [i, i+windowSize-1]. The last windowSize-1 DataPoints get the
+     * mean of the last window.
      * @param ts
      * @return filtered time series
      */
     public RegularlyTimeSeries sFilter(RegularlyTimeSeries ts) {
         long tsSize = ts.size();
-        boolean firstElement = true;
-        RegularlyTimeSeries filteredTs = new RegularlyTimeSeries(ts.getSpacing());
-        for(long i = 0; i < tsSize-this.windowSize+1; i++) {
-            RegularlyTimeSeries sub = ts.subSeries(i, i + this.windowSize);
-            double mean = sub.mean();
-            filteredTs.addFirstDataPoint(ts.getT(0), mean);
-            if(firstElement) {
-                filteredTs.addFirstDataPoint(ts.getT(i),mean);
+        RegularlyTimeSeries filteredTs = this.createOutput(ts);
+        if(tsSize < this.windowSize) {
+            return filteredTs;
+        }
+        RunningSum sum = new RunningSum(this.compensated);
+        for(long i = 0; i < this.windowSize; i++) {
+            sum.add(ts.getX(i));
+        }
+        double mean = sum.value()/this.windowSize;
+        filteredTs.addFirstDataPoint(ts.getT(0), mean);
+        for(long i = this.windowSize; i < tsSize; i++) {
+            sum.add(ts.getX(i));
+            sum.add(-ts.getX(i-this.windowSize));
+            mean = sum.value()/this.windowSize;
+            filteredTs.addX(mean);
+        }
+        //Fill the rest
+        for(long i = 1; i < this.windowSize; i++) {
+            filteredTs.addX(mean);
+        }
+        return filteredTs;
+    }
+
+    /**
+     * Filter the time series with a linearly weighted moving average.
+     * Inside the window [i, i+windowSize-1] the oldest DataPoint gets the weight 1 and the newest DataPoint gets
+     * the weight windowSize. The last windowSize-1 DataPoints get the value of the last window.
+     * @param ts
+     * @return filtered time series
+     */
+    public RegularlyTimeSeries wFilter(RegularlyTimeSeries ts) {
+        long tsSize = ts.size();
+        RegularlyTimeSeries filteredTs = this.createOutput(ts);
+        if(tsSize < this.windowSize) {
+            return filteredTs;
+        }
+        double weights = this.windowSize*(this.windowSize+1)/2.0;
+        RunningSum sum = new RunningSum(this.compensated);
+        RunningSum weightedSum = new RunningSum(this.compensated);
+        for(long i = 0; i < this.windowSize; i++) {
+            double x = ts.getX(i);
+            sum.add(x);
+            weightedSum.add((i+1)*x);
+        }
+        double wma = weightedSum.value()/weights;
+        filteredTs.addFirstDataPoint(ts.getT(0), wma);
+        for(long i = this.windowSize; i < tsSize; i++) {
+            double x = ts.getX(i);
+            //Every weight in the window decreases by one, so the old sum drops out once.
+            weightedSum.add(this.windowSize*x);
+            weightedSum.add(-sum.value());
+            sum.add(x);
+            sum.add(-ts.getX(i-this.windowSize));
+            wma = weightedSum.value()/weights;
+            filteredTs.addX(wma);
+        }
+        //Fill the rest
+        for(long i = 1; i < this.windowSize; i++) {
+            filteredTs.addX(wma);
+        }
+        return filteredTs;
+    }
+
+    /**
+     * Filter the time series with an exponential moving average.
+     * The smoothing factor is 2/(windowSize+1), so that the center of mass matches a simple moving average of
+     * the same window size. The first DataPoint starts the average.
+     * @param ts
+     * @return filtered time series
+     */
+    public RegularlyTimeSeries eFilter(RegularlyTimeSeries ts) {
+        long tsSize = ts.size();
+        RegularlyTimeSeries filteredTs = this.createOutput(ts);
+        if(tsSize == 0) {
+            return filteredTs;
+        }
+        double alpha = 2.0/(this.windowSize+1);
+        double ema = ts.getX(0);
+        filteredTs.addFirstDataPoint(ts.getT(0), ema);
+        for(long i = 1; i < tsSize; i++) {
+            ema += alpha*(ts.getX(i)-ema);
+            filteredTs.addX(ema);
+        }
+        return filteredTs;
+    }
+
+    /**
+     * Filter the time series with a centered moving average.
+     * The DataPoint i gets the mean of the window [i-(windowSize-1)/2, i+windowSize/2]. At the beginning and the
+     * end of the time series the window only contains the existing DataPoints.
+     * @param ts
+     * @return filtered time series
+     */
+    public RegularlyTimeSeries cFilter(RegularlyTimeSeries ts) {
+        long tsSize = ts.size();
+        RegularlyTimeSeries filteredTs = this.createOutput(ts);
+        if(tsSize == 0) {
+            return filteredTs;
+        }
+        long before = (this.windowSize-1)/2;
+        long after = this.windowSize/2;
+        RunningSum sum = new RunningSum(this.compensated);
+        long from = 0;
+        long to = -1;
+        for(long i = 0; i < tsSize; i++) {
+            long nTo = Math.min(i+after, tsSize-1);
+            while(to < nTo) {
+                to++;
+                sum.add(ts.getX(to));
+            }
+            long nFrom = Math.max(i-before, 0);
+            while(from < nFrom) {
+                sum.add(-ts.getX(from));
+                from++;
+            }
+            double mean = sum.value()/(to-from+1);
+            if(i==0) {
+                filteredTs.addFirstDataPoint(ts.getT(0), mean);
             }
             else {
                 filteredTs.addX(mean);
             }
-            if(i==tsSize-this.windowSize) {
-                //Fill the rest
-                i++;
-                while(i<tsSize) {
-                    if(firstElement) {
-                        filteredTs.addFirstDataPoint(ts.getT(i),mean);
-                    }
-                    else {
-                        filteredTs.addX(mean);
-                    }
-                    i++;
-                }
-            }
         }
         return filteredTs;
     }
+
+    /**
+     * Creates an empty time series with the spacing of ts and enough capacity for all DataPoints of ts.
+     * @param ts
+     * @return empty time series
+     */
+    private RegularlyTimeSeries createOutput(RegularlyTimeSeries ts) {
+        int capacity = (int) Math.min(ts.size(), Integer.MAX_VALUE - 8);
+        return new RegularlyTimeSeries(ts.getSpacing(), 0, new ArrayStorage(capacity));
+    }
+
+    /**
+     * A running sum, which can be compensated by the Kahan-Babuska (Neumaier) algorithm.
+     */
+    private static final class RunningSum {
+        /**
+         * Use the compensation?
+         */
+        private final boolean compensated;
+        /**
+         * The uncompensated sum
+         */
+        private double sum;
+        /**
+         * The lost low-order bits
+         */
+        private double compensation;
+
+        RunningSum(boolean compensated) {
+            this.compensated = compensated;
+        }
+
+        void add(double x) {
+            if(!this.compensated) {
+                this.sum += x;
+                return;
+            }
+            double t = this.sum + x;
+            if(Math.abs(this.sum) >= Math.abs(x)) {
+                this.compensation += (this.sum - t) + x;
+            }
+            else {
+                this.compensation += (x - t) + this.sum;
+            }
+            this.sum = t;
+        }
+
+        double value() {
+            return this.sum + this.compensation;
+        }
+    }
 }
@@ -0,0 +1,61 @@
+/*
+ * This library is free software; you can redistribute it and/or modify it under the terms of
+ * the GNU Lesser General Public License as published by the Free Software Foundation.
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ */
+
+package timeseries.regularly_timeseries.forecasters;
+
+import timeseries.regularly_timeseries.forecasters.exponential_smoothing.OnlineForecaster;
+
+/**
+ * The online version of SimpleForecaster.averageMethod: every forecast is the mean of all observations.
+ */
+public class AverageForecaster extends OnlineForecaster {
+    /**
+     * Amount of observations in the mean
+     */
+    private long n;
+
+    /**
+     * Initialize an AverageForecaster
+     */
+    public AverageForecaster() {
+        super(1);
+    }
+
+    @Override
+    public void reset() {
+        super.reset();
+        this.n = 0;
+    }
+
+    @Override
+    protected void start(double x0) {
+        this.level = x0;
+        this.n = 1;
+    }
+
+    @Override
+    protected void initialize(double x0, double x1) {
+        //Both observations are passed to step afterwards
+        this.level = 0;
+        this.n = 0;
+    }
+
+    @Override
+    protected void step(double x) {
+        this.n++;
+        this.level += (x - this.level) / this.n;
+    }
+
+    @Override
+    protected void forecastState(int h, double[] dst) {
+        for(int k = 0; k < h; k++) {
+            dst[k] = this.level;
+        }
+    }
+}
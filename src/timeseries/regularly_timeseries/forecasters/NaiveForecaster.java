@@ -0,0 +1,47 @@
+/*
+ * This library is free software; you can redistribute it and/or modify it under the terms of
+ * the GNU Lesser General Public License as published by the Free Software Foundation.
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ */
+
+package timeseries.regularly_timeseries.forecasters;
+
+import timeseries.regularly_timeseries.forecasters.exponential_smoothing.OnlineForecaster;
+
+/**
+ * The online version of SimpleForecaster.naive_method: every forecast is the last observation.
+ */
+public class NaiveForecaster extends OnlineForecaster {
+
+    /**
+     * Initialize a NaiveForecaster
+     */
+    public NaiveForecaster() {
+        super(1);
+    }
+
+    @Override
+    protected void start(double x0) {
+        this.level = x0;
+    }
+
+    @Override
+    protected void initialize(double x0, double x1) {
+        this.level = x0;
+    }
+
+    @Override
+    protected void step(double x) {
+        this.level = x;
+    }
+
+    @Override
+    protected void forecastState(int h, double[] dst) {
+        for(int k = 0; k < h; k++) {
+            dst[k] = this.level;
+        }
+    }
+}
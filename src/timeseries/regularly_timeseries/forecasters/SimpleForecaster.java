@@ -32,7 +32,7 @@ public class SimpleForecaster {
      * @return forecast
      */
     public static double naive_method(RegularlyTimeSeries ts) {
-        return ts.getX(ts.size());
+        return ts.getX(ts.size()-1);
     }
 
 }
@@ -0,0 +1,41 @@
+/*
+ * This library is free software; you can redistribute it and/or modify it under the terms of
+ * the GNU Lesser General Public License as published by the Free Software Foundation.
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ */
+
+package timeseries.regularly_timeseries.forecasters.exponential_smoothing;
+
+import timeseries.storage.SeriesBlock;
+
+/**
+ * Checks the blocks, which are given to the batch fit methods.
+ */
+final class BatchChecks {
+
+    private BatchChecks() {
+    }
+
+    /**
+     * Checks, if fitted and forecasts fit to the block ts.
+     * @param ts the original series
+     * @param minLength the minimum length of the series
+     * @param fitted block for the fitted values, may be null
+     * @param forecasts block for the forecasts, may be null
+     */
+    static void check(SeriesBlock ts, int minLength, SeriesBlock fitted, SeriesBlock forecasts) {
+        if(ts.getLength() < minLength) {
+            throw new IllegalArgumentException("The method needs at least " + minLength + " values per series");
+        }
+        if(fitted != null && (fitted.getSeries() != ts.getSeries() || fitted.getLength() != ts.getLength())) {
+            throw new IllegalArgumentException("fitted has to be a " + ts.getSeries() + " x " + ts.getLength()
+                    + " block");
+        }
+        if(forecasts != null && forecasts.getSeries() != ts.getSeries()) {
+            throw new IllegalArgumentException("forecasts has to contain " + ts.getSeries() + " series");
+        }
+    }
+}
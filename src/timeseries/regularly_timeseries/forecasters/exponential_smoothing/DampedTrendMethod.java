@@ -10,6 +10,7 @@
 package timeseries.regularly_timeseries.forecasters.exponential_smoothing;
 
 import timeseries.RegularlyTimeSeries;
+import timeseries.storage.SeriesBlock;
 
 /**
  * Created by apolol92 on 21.08.15.
@@ -20,6 +21,7 @@ public class DampedTrendMethod {
     /**
      * Until now, I wasn't able to test this method, so be careful & do a double check.
      * This method creates a time series via the damped trend method.
+     * The damping sums of the forecasts come from the shared tables of DampingFactors.
      * @param ts real time series
      * @param alpha parameter between [0,1]
      * @param beta parameter between [0,1]
@@ -36,24 +38,72 @@ public class DampedTrendMethod {
         double bt = 0;
         //System.out.println(bt_1);
         rts.addFirstDataPoint(ts.getT(0),lt_1+1*bt_1);
-        for(long i = 0; i < ts.size(); i++) {
+        for(long i = 0; i < size; i++) {
             lt = alpha * ts.getX(i) + (1 - alpha) * (lt_1 + damped*bt_1);
             bt = beta * (lt - lt_1) + (1 - beta) * damped*bt_1;
-            if(i<ts.size()-1) {
+            if(i<size - 1) {
                 rts.addX(lt + 1 * bt*damped);
                 lt_1 = lt;
                 bt_1 = bt;
             }
 
         }
-        //Not sure..
-        for(double i = 1; i <= h; i++) {
-            double df = 0;
-            for(int d = 1; d <= i; d++) {
-                df+=Math.pow(damped,d);
-            }
-            rts.addX(lt+df*bt);
+        double[] df = DampingFactors.table(damped, h);
+        for(int i = 0; i < h; i++) {
+            rts.addX(lt+df[i]*bt);
         }
         return rts;
     }
+
+    /**
+     * Fits the damped trend method to every series of a block and writes the results into preallocated blocks.
+     * All series are walked in lockstep: for every tick, the inner loop updates all series, so it runs over
+     * neighbouring values and can be vectorized by the JIT.
+     * @param ts real series
+     * @param alpha parameter between [0,1]
+     * @param beta parameter between [0,1]
+     * @param damped parameter  between [0,1]
+     * @param fitted block for the one-step forecasts (same shape as ts) or null
+     * @param forecasts block for the forecasts, its length is the forecasting range
+     */
+    public static void fit(SeriesBlock ts, double alpha, double beta, double damped, SeriesBlock fitted,
+                           SeriesBlock forecasts) {
+        BatchChecks.check(ts, 1, fitted, forecasts);
+        int series = ts.getSeries();
+        int length = ts.getLength();
+        double[] x = ts.getValues();
+        double[] f = fitted == null ? null : fitted.getValues();
+        double[] level = new double[series];
+        double[] trend = new double[series];
+        for(int s = 0; s < series; s++) {
+            level[s] = x[s];
+            trend[s] = length > 1 ? (x[series + s] - x[s]) / ts.getSpacing() : 0;
+            if(f != null) {
+                f[s] = level[s] + trend[s];
+            }
+        }
+        for(int t = 0; t < length; t++) {
+            int row = t * series;
+            boolean write = f != null && t < length - 1;
+            for(int s = 0; s < series; s++) {
+                double lt = alpha * x[row + s] + (1 - alpha) * (level[s] + damped * trend[s]);
+                double bt = beta * (lt - level[s]) + (1 - beta) * damped * trend[s];
+                if(write) {
+                    f[row + series + s] = lt + bt * damped;
+                }
+                level[s] = lt;
+                trend[s] = bt;
+            }
+        }
+        if(forecasts != null) {
+            double[] fc = forecasts.getValues();
+            double[] df = DampingFactors.table(damped, forecasts.getLength());
+            for(int k = 0; k < forecasts.getLength(); k++) {
+                int row = k * series;
+                for(int s = 0; s < series; s++) {
+                    fc[row + s] = level[s] + df[k] * trend[s];
+                }
+            }
+        }
+    }
 }
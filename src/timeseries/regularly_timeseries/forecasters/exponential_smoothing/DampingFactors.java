@@ -0,0 +1,120 @@
+/*
+ * This library is free software; you can redistribute it and/or modify it under the terms of
+ * the GNU Lesser General Public License as published by the Free Software Foundation.
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ */
+
+package timeseries.regularly_timeseries.forecasters.exponential_smoothing;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Caches the damping sums of the damped trend methods.
+ * The forecast of the damped trend methods k steps ahead needs damped + damped^2 + .. + damped^k. Every sum is
+ * calculated from the previous one with a running power, so a table of h sums costs O(h) multiplications and
+ * not any Math.pow. The tables are shared by all series, which use the same damping parameter.
+ * The online forecasters don't use the cache, their running power doesn't need any table (or allocation).
+ */
+public final class DampingFactors {
+    /**
+     * Amount of damping parameters, which are cached. An optimizer tries lots of different parameters, so the
+     * least recently used table is evicted.
+     */
+    private static final int MAX_CACHED = 64;
+    /**
+     * Longer tables aren't cached (512KB per table), a huge horizon mustn't stay in memory forever
+     */
+    private static final int MAX_CACHED_LENGTH = 1 << 16;
+    /**
+     * The cached tables by damping parameter in access order, guarded by itself
+     */
+    private static final Map<Double, double[]> CACHE = new LinkedHashMap<Double, double[]>(16, 0.75f, true) {
+        private static final long serialVersionUID = 1L;
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Double, double[]> eldest) {
+            return this.size() > MAX_CACHED;
+        }
+    };
+
+    private DampingFactors() {
+    }
+
+    /**
+     * Writes the damping sums for the horizons 1..h into dst[0, h): dst[k-1] = damped + damped^2 + .. + damped^k.
+     * @param damped parameter between [0,1]
+     * @param h forecast steps
+     * @param dst array for the sums, at least h long
+     * @return dst
+     */
+    public static double[] sums(double damped, int h, double[] dst) {
+        if(h > MAX_CACHED_LENGTH) {
+            return compute(damped, h, dst);
+        }
+        System.arraycopy(table(damped, h), 0, dst, 0, h);
+        return dst;
+    }
+
+    /**
+     * Gets the cached table of the damping sums for the horizons 1..h, see sums(double, int, double[]).
+     * The table is shared, so don't change it. It may be longer than h.
+     * Tables longer than MAX_CACHED_LENGTH are calculated for every call and not cached.
+     * @param damped parameter between [0,1]
+     * @param h forecast steps, at least 0
+     * @return the damping sums
+     */
+    static double[] table(double damped, int h) {
+        if(h < 0) {
+            throw new IllegalArgumentException("Illegal forecast steps: " + h);
+        }
+        if(h > MAX_CACHED_LENGTH) {
+            return compute(damped, h, new double[h]);
+        }
+        Double key = damped;
+        double[] sums;
+        synchronized(CACHE) {
+            sums = CACHE.get(key);
+        }
+        if(sums != null && sums.length >= h) {
+            return sums;
+        }
+        //Grow at least by the factor 2, so a slowly growing horizon doesn't recalculate the table every time
+        int length = sums == null ? h : Math.min(Math.max(h, 2 * sums.length), MAX_CACHED_LENGTH);
+        double[] computed = compute(damped, length, new double[length]);
+        synchronized(CACHE) {
+            CACHE.put(key, computed);
+        }
+        return computed;
+    }
+
+    /**
+     * Gets the cached table of the damping sums for the horizons 1..h, see table(double, int)
+     * @param damped parameter between [0,1]
+     * @param h forecast steps, at least 0
+     * @return the damping sums
+     */
+    static double[] table(double damped, long h) {
+        if(h > Integer.MAX_VALUE - 8) {
+            throw new IllegalArgumentException("Too many forecast steps: " + h);
+        }
+        return table(damped, (int) h);
+    }
+
+    /**
+     * Calculates the table with a running power into sums[0, h)
+     */
+    private static double[] compute(double damped, int h, double[] sums) {
+        double df = 0;
+        double power = 1;
+        for(int k = 0; k < h; k++) {
+            power *= damped;
+            df += power;
+            sums[k] = df;
+        }
+        return sums;
+    }
+}
@@ -0,0 +1,235 @@
+/*
+ * This library is free software; you can redistribute it and/or modify it under the terms of
+ * the GNU Lesser General Public License as published by the Free Software Foundation.
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ */
+
+package timeseries.regularly_timeseries.forecasters.exponential_smoothing;
+
+/**
+ * Lists the exponential smoothing methods of this package together with their parameters.
+ * The parameters are always ordered alpha, beta, damped.
+ * Every method can calculate the sum of squared one-step forecast errors (SSE) of a parameter set. It walks the
+ * same recursion as the fit method and doesn't allocate anything, so it can be called very often, e.g. by the
+ * ParameterOptimizer.
+ */
+public enum ExponentialSmoothingMethod {
+    /**
+     * SimpleExponentialSmoothing, parameters: alpha
+     */
+    SIMPLE(1, 1, new double[]{0.0001}, new double[]{1}) {
+        @Override
+        public double sse(double[] x, int length, double spacing, double[] params, int offset) {
+            double alpha = params[offset];
+            double lt = x[0];
+            double sse = 0;
+            for(int i = 1; i < length; i++) {
+                double e = x[i] - lt;
+                sse += e * e;
+                lt = alpha * x[i] + (1 - alpha) * lt;
+            }
+            return finite(sse);
+        }
+
+        @Override
+        public OnlineForecaster forecaster(double spacing, double[] params, int offset) {
+            return new SimpleExponentialSmoothingForecaster(params[offset]);
+        }
+    },
+    /**
+     * HoltsLinearTrendMethod, parameters: alpha, beta
+     */
+    HOLTS_LINEAR(2, 1, new double[]{0.0001, 0.0001}, new double[]{1, 1}) {
+        @Override
+        public double sse(double[] x, int length, double spacing, double[] params, int offset) {
+            double alpha = params[offset];
+            double beta = params[offset + 1];
+            double lt_1 = x[0];
+            double bt_1 = length > 1 ? (x[1] - x[0]) / spacing : 0;
+            double sse = 0;
+            for(int i = 0; i < length; i++) {
+                double e = x[i] - (lt_1 + bt_1);
+                sse += e * e;
+                double lt = alpha * x[i] + (1 - alpha) * (lt_1 + bt_1);
+                bt_1 = beta * (lt - lt_1) + (1 - beta) * bt_1;
+                lt_1 = lt;
+            }
+            return finite(sse);
+        }
+
+        @Override
+        public OnlineForecaster forecaster(double spacing, double[] params, int offset) {
+            return new HoltsLinearTrendForecaster(spacing, params[offset], params[offset + 1]);
+        }
+    },
+    /**
+     * DampedTrendMethod, parameters: alpha, beta, damped
+     */
+    DAMPED_TREND(3, 1, new double[]{0.0001, 0.0001, 0.8}, new double[]{1, 1, 0.98}) {
+        @Override
+        public double sse(double[] x, int length, double spacing, double[] params, int offset) {
+            double alpha = params[offset];
+            double beta = params[offset + 1];
+            double damped = params[offset + 2];
+            double lt_1 = x[0];
+            double bt_1 = length > 1 ? (x[1] - x[0]) / spacing : 0;
+            double sse = 0;
+            for(int i = 0; i < length; i++) {
+                double e = x[i] - (lt_1 + damped * bt_1);
+                sse += e * e;
+                double lt = alpha * x[i] + (1 - alpha) * (lt_1 + damped * bt_1);
+                bt_1 = beta * (lt - lt_1) + (1 - beta) * damped * bt_1;
+                lt_1 = lt;
+            }
+            return finite(sse);
+        }
+
+        @Override
+        public OnlineForecaster forecaster(double spacing, double[] params, int offset) {
+            return new DampedTrendForecaster(spacing, params[offset], params[offset + 1], params[offset + 2]);
+        }
+    },
+    /**
+     * ExponentialTrendMethod, parameters: alpha, beta
+     */
+    EXPONENTIAL_TREND(2, 2, new double[]{0.0001, 0.0001}, new double[]{1, 1}) {
+        @Override
+        public double sse(double[] x, int length, double spacing, double[] params, int offset) {
+            double alpha = params[offset];
+            double beta = params[offset + 1];
+            double lt_1 = x[0];
+            double bt_1 = x[1] / x[0];
+            double sse = 0;
+            for(int i = 0; i < length; i++) {
+                double e = x[i] - lt_1 * bt_1;
+                sse += e * e;
+                double lt = alpha * x[i] + (1 - alpha) * (lt_1 * bt_1);
+                bt_1 = beta * (lt / lt_1) + (1 - beta) * bt_1;
+                lt_1 = lt;
+            }
+            return finite(sse);
+        }
+
+        @Override
+        public OnlineForecaster forecaster(double spacing, double[] params, int offset) {
+            return new ExponentialTrendForecaster(params[offset], params[offset + 1]);
+        }
+    },
+    /**
+     * MultiplicativeDampedTrend, parameters: alpha, beta, damped
+     */
+    MULTIPLICATIVE_DAMPED_TREND(3, 2, new double[]{0.0001, 0.0001, 0.8}, new double[]{1, 1, 0.98}) {
+        @Override
+        public double sse(double[] x, int length, double spacing, double[] params, int offset) {
+            double alpha = params[offset];
+            double beta = params[offset + 1];
+            double damped = params[offset + 2];
+            double lt_1 = x[0];
+            double bt_1 = x[1] / x[0];
+            double sse = 0;
+            for(int i = 0; i < length; i++) {
+                double e = x[i] - lt_1 * Math.pow(bt_1, damped);
+                sse += e * e;
+                double lt = alpha * x[i] + (1 - alpha) * (lt_1 * bt_1);
+                bt_1 = beta * (lt / lt_1) + (1 - beta) * bt_1;
+                lt_1 = lt;
+            }
+            return finite(sse);
+        }
+
+        @Override
+        public OnlineForecaster forecaster(double spacing, double[] params, int offset) {
+            return new MultiplicativeDampedTrendForecaster(params[offset], params[offset + 1], params[offset + 2]);
+        }
+    };
+
+    /**
+     * Amount of parameters
+     */
+    private final int parameters;
+    /**
+     * The minimum amount of values, the method needs
+     */
+    private final int minLength;
+    /**
+     * The lower bounds of the parameters
+     */
+    private final double[] lower;
+    /**
+     * The upper bounds of the parameters
+     */
+    private final double[] upper;
+
+    ExponentialSmoothingMethod(int parameters, int minLength, double[] lower, double[] upper) {
+        this.parameters = parameters;
+        this.minLength = minLength;
+        this.lower = lower;
+        this.upper = upper;
+    }
+
+    /**
+     * Gets the amount of parameters
+     * @return amount of parameters
+     */
+    public int getParameters() {
+        return parameters;
+    }
+
+    /**
+     * Gets the minimum amount of values, the method needs
+     * @return minimum amount of values
+     */
+    public int getMinLength() {
+        return minLength;
+    }
+
+    /**
+     * Gets the lower bound of a parameter
+     * @param parameter index of the parameter
+     * @return the lower bound
+     */
+    public double getLowerBound(int parameter) {
+        return lower[parameter];
+    }
+
+    /**
+     * Gets the upper bound of a parameter
+     * @param parameter index of the parameter
+     * @return the upper bound
+     */
+    public double getUpperBound(int parameter) {
+        return upper[parameter];
+    }
+
+    /**
+     * Calculates the sum of squared one-step forecast errors.
+     * @param x the values
+     * @param length amount of values
+     * @param spacing spacing between the values
+     * @param params array with the parameters
+     * @param offset position of the first parameter in params
+     * @return the SSE or Double.POSITIVE_INFINITY, if the recursion isn't finite
+     */
+    public abstract double sse(double[] x, int length, double spacing, double[] params, int offset);
+
+    /**
+     * Creates the online version of the method with a parameter set
+     * @param spacing spacing between the values
+     * @param params array with the parameters
+     * @param offset position of the first parameter in params
+     * @return a new OnlineForecaster without any observation
+     */
+    public abstract OnlineForecaster forecaster(double spacing, double[] params, int offset);
+
+    /**
+     * Replaces NaN and infinite SSEs by Double.POSITIVE_INFINITY
+     * @param sse
+     * @return sse or Double.POSITIVE_INFINITY
+     */
+    private static double finite(double sse) {
+        return Double.isNaN(sse) || Double.isInfinite(sse) ? Double.POSITIVE_INFINITY : sse;
+    }
+}
@@ -0,0 +1,63 @@
+/*
+ * This library is free software; you can redistribute it and/or modify it under the terms of
+ * the GNU Lesser General Public License as published by the Free Software Foundation.
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ */
+
+package timeseries.regularly_timeseries.forecasters.exponential_smoothing;
+
+/**
+ * The online version of ExponentialTrendMethod.
+ */
+public class ExponentialTrendForecaster extends OnlineForecaster {
+    /**
+     * parameter between [0,1]
+     */
+    private final double alpha;
+    /**
+     * parameter between [0,1]
+     */
+    private final double beta;
+
+    /**
+     * Initialize an ExponentialTrendForecaster
+     * @param alpha parameter between [0,1]
+     * @param beta parameter between [0,1]
+     */
+    public ExponentialTrendForecaster(double alpha, double beta) {
+        super(1);
+        this.alpha = alpha;
+        this.beta = beta;
+    }
+
+    @Override
+    protected void start(double x0) {
+        this.level = x0;
+        this.trend = 1;
+    }
+
+    @Override
+    protected void initialize(double x0, double x1) {
+        this.level = x0;
+        this.trend = x1 / x0;
+    }
+
+    @Override
+    protected void step(double x) {
+        double lt = this.alpha * x + (1 - this.alpha) * (this.level * this.trend);
+        this.trend = this.beta * (lt / this.level) + (1 - this.beta) * this.trend;
+        this.level = lt;
+    }
+
+    @Override
+    protected void forecastState(int h, double[] dst) {
+        double growth = this.level;
+        for(int k = 0; k < h; k++) {
+            growth *= this.trend;
+            dst[k] = growth;
+        }
+    }
+}
@@ -0,0 +1,132 @@
+/*
+ * This library is free software; you can redistribute it and/or modify it under the terms of
+ * the GNU Lesser General Public License as published by the Free Software Foundation.
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ */
+
+package timeseries.regularly_timeseries.forecasters.exponential_smoothing;
+
+import timeseries.RegularlyTimeSeries;
+import timeseries.storage.ArrayStorage;
+
+/**
+ * Holt and Winters extended holt's linear trend method to capture seasonality.
+ * This method involves a forecast equation and three smoothing equations(Level Equation, Trend Equation and
+ * Seasonal Equation). The seasonal component is added to the level (additive) or multiplies it
+ * (multiplicative, for seasonal swings, which grow with the level). The trend can be damped.
+ * The seasonal components of the last season are kept in a ring buffer, so the fit is a single O(n) pass.
+ * The trend is measured per step.
+ */
+public class HoltWintersMethod {
+
+    /**
+     * How the seasonal component is combined with level and trend
+     */
+    public enum Seasonality {
+        ADDITIVE, MULTIPLICATIVE
+    }
+
+    /**
+     * Creates a holt-winters time series without damping.
+     * @param ts origin time series, at least two seasons long
+     * @param period length of a season in steps, e.g. 7 for daily data with weekly seasonality
+     * @param alpha parameter between [0,1]
+     * @param beta parameter between [0,1]
+     * @param gamma parameter between [0,1]
+     * @param seasonality additive or multiplicative
+     * @param h forecast steps
+     * @return holt-winters time series
+     */
+    public static RegularlyTimeSeries fit(RegularlyTimeSeries ts, int period, double alpha, double beta,
+                                          double gamma, Seasonality seasonality, long h) {
+        return fit(ts, period, alpha, beta, gamma, 1, seasonality, h);
+    }
+
+    /**
+     * Creates a holt-winters time series.
+     * The level starts with the mean of the first season, the trend with the difference between the means of the
+     * first two seasons and the seasonal components with the deviations of the first season from its mean.
+     * So the values of the first season are fitted by this initial decomposition, the following values by the
+     * one-step forecasts. The h-step forecast is level + (damped + .. + damped^h)*trend combined with the
+     * seasonal component of its position in the season, the damping sum is updated step by step.
+     * @param ts origin time series, at least two seasons long
+     * @param period length of a season in steps, e.g. 7 for daily data with weekly seasonality
+     * @param alpha parameter between [0,1]
+     * @param beta parameter between [0,1]
+     * @param gamma parameter between [0,1]
+     * @param damped parameter between [0,1], 1 means no damping
+     * @param seasonality additive or multiplicative
+     * @param h forecast steps
+     * @return holt-winters time series
+     */
+    public static RegularlyTimeSeries fit(RegularlyTimeSeries ts, int period, double alpha, double beta,
+                                          double gamma, double damped, Seasonality seasonality, long h) {
+        if(period < 1) {
+            throw new IllegalArgumentException("Illegal period: " + period);
+        }
+        if(ts.size() < 2L * period) {
+            throw new IllegalArgumentException("The method needs at least two seasons (" + 2L * period
+                    + " values)");
+        }
+        boolean multiplicative = seasonality == Seasonality.MULTIPLICATIVE;
+        double[] x = ts.toArray();
+        int size = x.length;
+        RegularlyTimeSeries rts = new RegularlyTimeSeries(ts.getSpacing(), 0,
+                new ArrayStorage((int) Math.min(size + h, Integer.MAX_VALUE - 8)));
+        //Initial decomposition of the first two seasons
+        double first = 0;
+        double second = 0;
+        for(int i = 0; i < period; i++) {
+            first += x[i];
+            second += x[period + i];
+        }
+        first /= period;
+        second /= period;
+        double lt = first;
+        double bt = (second - first) / period;
+        double[] seasonal = new double[period];
+        for(int i = 0; i < period; i++) {
+            seasonal[i] = multiplicative ? x[i] / first : x[i] - first;
+            double fitted = multiplicative ? first * seasonal[i] : first + seasonal[i];
+            if(i == 0) {
+                rts.addFirstDataPoint(ts.getT(0), fitted);
+            }
+            else {
+                rts.addX(fitted);
+            }
+        }
+        //seasonal[i % period] is the seasonal component of the same position one season ago
+        for(int i = period; i < size; i++) {
+            int position = i % period;
+            double st = seasonal[position];
+            double trended = lt + damped * bt;
+            double l;
+            if(multiplicative) {
+                rts.addX(trended * st);
+                l = alpha * (x[i] / st) + (1 - alpha) * trended;
+                seasonal[position] = gamma * (x[i] / trended) + (1 - gamma) * st;
+            }
+            else {
+                rts.addX(trended + st);
+                l = alpha * (x[i] - st) + (1 - alpha) * trended;
+                seasonal[position] = gamma * (x[i] - trended) + (1 - gamma) * st;
+            }
+            bt = beta * (l - lt) + (1 - beta) * damped * bt;
+            lt = l;
+        }
+        double df = 0;
+        double power = 1;
+        int position = size % period;
+        for(long k = 0; k < h; k++) {
+            power *= damped;
+            df += power;
+            double trended = lt + df * bt;
+            rts.addX(multiplicative ? trended * seasonal[position] : trended + seasonal[position]);
+            position = position + 1 == period ? 0 : position + 1;
+        }
+        return rts;
+    }
+}
@@ -10,6 +10,7 @@
 package timeseries.regularly_timeseries.forecasters.exponential_smoothing;
 
 import timeseries.RegularlyTimeSeries;
+import timeseries.storage.SeriesBlock;
 
 /**
  * Created by apolol92 on 21.08.15.
@@ -36,10 +37,10 @@ public class HoltsLinearTrendMethod {
         double bt = 0;
         //System.out.println(bt_1);
         rts.addFirstDataPoint(ts.getT(0),lt_1+1*bt_1);
-        for(long i = 0; i < ts.size(); i++) {
+        for(long i = 0; i < size; i++) {
             lt = alpha * ts.getX(i) + (1 - alpha) * (lt_1 + bt_1);
             bt = beta * (lt - lt_1) + (1 - beta) * bt_1;
-            if(i<ts.size()-1) {
+            if(i<size - 1) {
                 rts.addX(lt + 1 * bt);
                 lt_1 = lt;
                 bt_1 = bt;
@@ -51,4 +52,53 @@ public class HoltsLinearTrendMethod {
         }
         return rts;
     }
+
+    /**
+     * Fits holt's linear trend method to every series of a block and writes the results into preallocated blocks.
+     * All series are walked in lockstep: for every tick, the inner loop updates all series, so it runs over
+     * neighbouring values and can be vectorized by the JIT.
+     * @param ts origin series
+     * @param alpha parameter between [0,1]
+     * @param beta parameter between [0,1]
+     * @param fitted block for the one-step forecasts (same shape as ts) or null
+     * @param forecasts block for the forecasts, its length is the forecasting range
+     */
+    public static void fit(SeriesBlock ts, double alpha, double beta, SeriesBlock fitted, SeriesBlock forecasts) {
+        BatchChecks.check(ts, 1, fitted, forecasts);
+        int series = ts.getSeries();
+        int length = ts.getLength();
+        double[] x = ts.getValues();
+        double[] f = fitted == null ? null : fitted.getValues();
+        double[] level = new double[series];
+        double[] trend = new double[series];
+        for(int s = 0; s < series; s++) {
+            level[s] = x[s];
+            trend[s] = length > 1 ? (x[series + s] - x[s]) / ts.getSpacing() : 0;
+            if(f != null) {
+                f[s] = level[s] + trend[s];
+            }
+        }
+        for(int t = 0; t < length; t++) {
+            int row = t * series;
+            boolean write = f != null && t < length - 1;
+            for(int s = 0; s < series; s++) {
+                double lt = alpha * x[row + s] + (1 - alpha) * (level[s] + trend[s]);
+                double bt = beta * (lt - level[s]) + (1 - beta) * trend[s];
+                if(write) {
+                    f[row + series + s] = lt + bt;
+                }
+                level[s] = lt;
+                trend[s] = bt;
+            }
+        }
+        if(forecasts != null) {
+            double[] fc = forecasts.getValues();
+            for(int k = 0; k < forecasts.getLength(); k++) {
+                int row = k * series;
+                for(int s = 0; s < series; s++) {
+                    fc[row + s] = level[s] + (k + 1) * trend[s];
+                }
+            }
+        }
+    }
 }
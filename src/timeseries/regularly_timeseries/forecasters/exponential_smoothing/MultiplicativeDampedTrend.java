@@ -10,6 +10,7 @@
 package timeseries.regularly_timeseries.forecasters.exponential_smoothing;
 
 import timeseries.RegularlyTimeSeries;
+import timeseries.storage.SeriesBlock;
 
 /**
  * Created by apolol92 on 22.08.15.
@@ -18,6 +19,7 @@ public class MultiplicativeDampedTrend {
 
     /**
      * Until now, I wasn't able to test this method, so be careful & do a double check.
+     * The damping sums of the forecasts come from the shared tables of DampingFactors.
      * @param ts original time series
      * @param alpha parameter between [0,1]
      * @param beta parameter between [0,1]
@@ -29,32 +31,96 @@ public class MultiplicativeDampedTrend {
         RegularlyTimeSeries rts = new RegularlyTimeSeries(ts.getSpacing());
         long size = ts.size();
         double lt_1 = ts.getX(0);
-        System.out.println(lt_1);
         double bt_1 = ts.getX(1) / ts.getX(0);
-        System.out.println(bt_1);
         double lt = 0;
         double bt = 0;
         //System.out.println(bt_1);
         rts.addFirstDataPoint(ts.getT(0), lt_1 * Math.pow(bt_1, 1));
-        for (long i = 0; i < ts.size(); i++) {
+        for (long i = 0; i < size; i++) {
             lt = alpha * ts.getX(i) + (1 - alpha) * (lt_1 * bt_1);
-            System.out.println(lt);
             bt = beta * (lt / lt_1) + (1 - beta) * bt_1;
-            if (i < ts.size() - 1) {
+            if (i < size - 1) {
                 rts.addX(lt * Math.pow(bt, damped));
                 lt_1 = lt;
                 bt_1 = bt;
             }
 
         }
-        //Not sure..
-        for (double i = 1; i <= h; i++) {
-            double df = 0;
-            for(int d = 1; d <= i; d++) {
-                df+=Math.pow(damped,d);
-            }
-            rts.addX(lt * Math.pow(bt, df));
+        //bt^df = exp(df * log(bt)), so the logarithm is only calculated once (see power)
+        double[] df = DampingFactors.table(damped, h);
+        double logBt = Math.log(bt);
+        for(int i = 0; i < h; i++) {
+            rts.addX(lt * power(bt, logBt, df[i]));
         }
         return rts;
     }
+
+    /**
+     * Fits the multiplicative damped trend method to every series of a block and writes the results into
+     * preallocated blocks.
+     * All series are walked in lockstep: for every tick, the inner loop updates all series, so it runs over
+     * neighbouring values and can be vectorized by the JIT.
+     * @param ts original series, at least 2 values per series
+     * @param alpha parameter between [0,1]
+     * @param beta parameter between [0,1]
+     * @param damped parameter  between [0,1]
+     * @param fitted block for the one-step forecasts (same shape as ts) or null
+     * @param forecasts block for the forecasts, its length is the forecasting range
+     */
+    public static void fit(SeriesBlock ts, double alpha, double beta, double damped, SeriesBlock fitted,
+                           SeriesBlock forecasts) {
+        BatchChecks.check(ts, 2, fitted, forecasts);
+        int series = ts.getSeries();
+        int length = ts.getLength();
+        double[] x = ts.getValues();
+        double[] f = fitted == null ? null : fitted.getValues();
+        double[] level = new double[series];
+        double[] trend = new double[series];
+        for(int s = 0; s < series; s++) {
+            level[s] = x[s];
+            trend[s] = x[series + s] / x[s];
+            if(f != null) {
+                f[s] = level[s] * trend[s];
+            }
+        }
+        for(int t = 0; t < length; t++) {
+            int row = t * series;
+            boolean write = f != null && t < length - 1;
+            for(int s = 0; s < series; s++) {
+                double lt = alpha * x[row + s] + (1 - alpha) * (level[s] * trend[s]);
+                double bt = beta * (lt / level[s]) + (1 - beta) * trend[s];
+                if(write) {
+                    f[row + series + s] = lt * Math.pow(bt, damped);
+                }
+                level[s] = lt;
+                trend[s] = bt;
+            }
+        }
+        if(forecasts != null) {
+            double[] fc = forecasts.getValues();
+            double[] df = DampingFactors.table(damped, forecasts.getLength());
+            double[] logTrend = new double[series];
+            for(int s = 0; s < series; s++) {
+                logTrend[s] = Math.log(trend[s]);
+            }
+            for(int k = 0; k < forecasts.getLength(); k++) {
+                int row = k * series;
+                for(int s = 0; s < series; s++) {
+                    fc[row + s] = level[s] * power(trend[s], logTrend[s], df[k]);
+                }
+            }
+        }
+    }
+
+    /**
+     * Calculates trend^exponent. A positive trend uses exp(exponent * logTrend) with the hoisted logarithm,
+     * otherwise Math.pow gives the real result, if there is one (e.g. for an integral exponent).
+     * @param trend the trend
+     * @param logTrend Math.log(trend)
+     * @param exponent the damping sum
+     * @return trend^exponent
+     */
+    static double power(double trend, double logTrend, double exponent) {
+        return trend > 0 ? Math.exp(exponent * logTrend) : Math.pow(trend, exponent);
+    }
 }
@@ -0,0 +1,73 @@
+/*
+ * This library is free software; you can redistribute it and/or modify it under the terms of
+ * the GNU Lesser General Public License as published by the Free Software Foundation.
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ */
+
+package timeseries.regularly_timeseries.forecasters.exponential_smoothing;
+
+/**
+ * The online version of MultiplicativeDampedTrend.
+ */
+public class MultiplicativeDampedTrendForecaster extends OnlineForecaster {
+    /**
+     * parameter between [0,1]
+     */
+    private final double alpha;
+    /**
+     * parameter between [0,1]
+     */
+    private final double beta;
+    /**
+     * parameter between [0,1]
+     */
+    private final double damped;
+
+    /**
+     * Initialize a MultiplicativeDampedTrendForecaster
+     * @param alpha parameter between [0,1]
+     * @param beta parameter between [0,1]
+     * @param damped parameter between [0,1]
+     */
+    public MultiplicativeDampedTrendForecaster(double alpha, double beta, double damped) {
+        super(1);
+        this.alpha = alpha;
+        this.beta = beta;
+        this.damped = damped;
+    }
+
+    @Override
+    protected void start(double x0) {
+        this.level = x0;
+        this.trend = 1;
+    }
+
+    @Override
+    protected void initialize(double x0, double x1) {
+        this.level = x0;
+        this.trend = x1 / x0;
+    }
+
+    @Override
+    protected void step(double x) {
+        double lt = this.alpha * x + (1 - this.alpha) * (this.level * this.trend);
+        this.trend = this.beta * (lt / this.level) + (1 - this.beta) * this.trend;
+        this.level = lt;
+    }
+
+    @Override
+    protected void forecastState(int h, double[] dst) {
+        //A running power, the online forecast doesn't allocate anything
+        double df = 0;
+        double power = 1;
+        double logTrend = Math.log(this.trend);
+        for(int k = 0; k < h; k++) {
+            power *= this.damped;
+            df += power;
+            dst[k] = this.level * MultiplicativeDampedTrend.power(this.trend, logTrend, df);
+        }
+    }
+}
@@ -0,0 +1,175 @@
+/*
+ * This library is free software; you can redistribute it and/or modify it under the terms of
+ * the GNU Lesser General Public License as published by the Free Software Foundation.
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ */
+
+package timeseries.regularly_timeseries.forecasters.exponential_smoothing;
+
+import timeseries.RegularlyTimeSeries;
+
+/**
+ * An exponential smoothing method, which keeps its state (level and trend) and updates it with every new
+ * observation. An update costs O(1) and doesn't allocate anything, so it is suitable for live data.
+ * After the same observations, the state is the same as the state of the corresponding fit method.
+ * The initial trend of the fit methods needs the first two observations, so the state is initialized when
+ * the second observation arrives.
+ */
+public abstract class OnlineForecaster {
+    /**
+     * The spacing between the observations
+     */
+    protected final double spacing;
+    /**
+     * The current level
+     */
+    protected double level;
+    /**
+     * The current trend
+     */
+    protected double trend;
+    /**
+     * The amount of observations
+     */
+    private long count;
+    /**
+     * The first observation
+     */
+    private double first;
+    /**
+     * Receives the one-step forecast of simulateStep
+     */
+    private final double[] oneStep = new double[1];
+
+    /**
+     * Initialize an OnlineForecaster
+     * @param spacing the spacing between the observations
+     */
+    protected OnlineForecaster(double spacing) {
+        this.spacing = spacing;
+        this.reset();
+    }
+
+    /**
+     * Removes all observations
+     */
+    public void reset() {
+        this.count = 0;
+        this.level = 0;
+        this.trend = 0;
+    }
+
+    /**
+     * Updates the state with a new observation
+     * @param x the new observation
+     */
+    public final void update(double x) {
+        if(this.count == 0) {
+            this.first = x;
+            this.start(x);
+        }
+        else if(this.count == 1) {
+            this.initialize(this.first, x);
+            this.step(this.first);
+            this.step(x);
+        }
+        else {
+            this.step(x);
+        }
+        this.count++;
+    }
+
+    /**
+     * Updates the state with all values of a time series
+     * @param ts the time series
+     */
+    public void update(RegularlyTimeSeries ts) {
+        long size = ts.size();
+        for(long i = 0; i < size; i++) {
+            this.update(ts.getX(i));
+        }
+    }
+
+    /**
+     * Gets the amount of observations
+     * @return amount of observations
+     */
+    public long getCount() {
+        return count;
+    }
+
+    /**
+     * Gets the current level
+     * @return the level
+     */
+    public double getLevel() {
+        return level;
+    }
+
+    /**
+     * Gets the current trend
+     * @return the trend
+     */
+    public double getTrend() {
+        return trend;
+    }
+
+    /**
+     * Writes the forecasts of the next h steps into dst[0, h).
+     * @param h forecast steps
+     * @param dst array for the forecasts, at least h long
+     */
+    public void forecast(int h, double[] dst) {
+        if(this.count == 0) {
+            throw new IllegalStateException("There isn't any observation");
+        }
+        this.forecastState(h, dst);
+    }
+
+    /**
+     * Simulates one step of a sample path, which starts from the given state: the one-step forecast plus the error
+     * is observed and the state is updated by exactly the same recursion as update. The new state can be read
+     * with getLevel and getTrend afterwards, the amount of observations doesn't change.
+     * @param level the level of the path
+     * @param trend the trend of the path
+     * @param error the error, which is added to the one-step forecast
+     * @return the simulated observation
+     */
+    double simulateStep(double level, double trend, double error) {
+        this.level = level;
+        this.trend = trend;
+        this.forecastState(1, this.oneStep);
+        double x = this.oneStep[0] + error;
+        this.step(x);
+        return x;
+    }
+
+    /**
+     * Sets the state, if there is only the first observation
+     * @param x0 the first observation
+     */
+    protected abstract void start(double x0);
+
+    /**
+     * Sets the initial level and trend
+     * @param x0 the first observation
+     * @param x1 the second observation
+     */
+    protected abstract void initialize(double x0, double x1);
+
+    /**
+     * Updates level and trend with an observation
+     * @param x the observation
+     */
+    protected abstract void step(double x);
+
+    /**
+     * Writes the forecasts of the current state
+     * @param h forecast steps
+     * @param dst array for the forecasts
+     */
+    protected abstract void forecastState(int h, double[] dst);
+}
@@ -0,0 +1,283 @@
+/*
+ * This library is free software; you can redistribute it and/or modify it under the terms of
+ * the GNU Lesser General Public License as published by the Free Software Foundation.
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ */
+
+package timeseries.regularly_timeseries.forecasters.exponential_smoothing;
+
+import timeseries.RegularlyTimeSeries;
+import timeseries.concurrent.RangeTask;
+
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Picks the parameters (alpha, beta, damped) of an exponential smoothing method by minimizing the sum of
+ * squared one-step forecast errors.
+ * First a coarse grid of parameter sets is evaluated in parallel. The best grid points are used as starting
+ * points for a bounded Nelder-Mead search, which also run in parallel. Every worker thread reuses its own
+ * workspace, so the searches don't allocate anything.
+ */
+public class ParameterOptimizer {
+    /**
+     * Amount of grid points per parameter
+     */
+    private static final int GRID_STEPS = 5;
+    /**
+     * Amount of Nelder-Mead searches
+     */
+    private static final int STARTS = 4;
+    /**
+     * Maximum amount of Nelder-Mead iterations per search
+     */
+    private static final int MAX_ITERATIONS = 500;
+    /**
+     * A search stops, if the relative spread of the SSEs in the simplex is below this value
+     */
+    private static final double TOLERANCE = 1e-10;
+    /**
+     * The initial size of the simplex relative to the parameter range
+     */
+    private static final double INITIAL_STEP = 0.1;
+    /**
+     * The largest amount of parameters of a method
+     */
+    private static final int MAX_PARAMETERS = 3;
+
+    /**
+     * The pool, which runs the evaluations
+     */
+    private final ForkJoinPool pool;
+    /**
+     * One workspace per worker thread
+     */
+    private final ThreadLocal<Workspace> workspaces = ThreadLocal.withInitial(Workspace::new);
+
+    /**
+     * Initialize a ParameterOptimizer, which uses the common pool.
+     */
+    public ParameterOptimizer() {
+        this(ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Initialize a ParameterOptimizer
+     * @param pool the pool, which runs the evaluations
+     */
+    public ParameterOptimizer(ForkJoinPool pool) {
+        this.pool = pool;
+    }
+
+    /**
+     * Finds the best parameters for the given time series
+     * @param ts the time series
+     * @param method the exponential smoothing method
+     * @return the parameters, ordered alpha, beta, damped
+     */
+    public double[] optimize(RegularlyTimeSeries ts, ExponentialSmoothingMethod method) {
+        double[] x = ts.toArray();
+        return this.optimize(x, x.length, ts.getSpacing(), method);
+    }
+
+    /**
+     * Finds the best parameters for the given values
+     * @param x the values
+     * @param length amount of values
+     * @param spacing spacing between the values
+     * @param method the exponential smoothing method
+     * @return the parameters, ordered alpha, beta, damped
+     */
+    public double[] optimize(double[] x, int length, double spacing, ExponentialSmoothingMethod method) {
+        if(length < method.getMinLength()) {
+            throw new IllegalArgumentException(method + " needs at least " + method.getMinLength() + " values");
+        }
+        int d = method.getParameters();
+        int candidates = 1;
+        for(int p = 0; p < d; p++) {
+            candidates *= GRID_STEPS;
+        }
+        //Evaluate the grid
+        double[] grid = new double[candidates * d];
+        double[] gridSse = new double[candidates];
+        for(int c = 0; c < candidates; c++) {
+            int digits = c;
+            for(int p = 0; p < d; p++) {
+                double lower = method.getLowerBound(p);
+                double upper = method.getUpperBound(p);
+                grid[c * d + p] = lower + (upper - lower) * ((digits % GRID_STEPS) + 0.5) / GRID_STEPS;
+                digits /= GRID_STEPS;
+            }
+        }
+        this.pool.invoke(new RangeTask(0, candidates,
+                c -> gridSse[c] = method.sse(x, length, spacing, grid, c * d)));
+        //Search from the best grid points
+        int starts = Math.min(STARTS, candidates);
+        double[] results = new double[starts * d];
+        double[] resultSse = new double[starts];
+        boolean[] picked = new boolean[candidates];
+        for(int s = 0; s < starts; s++) {
+            //Only un-picked points compete, so even equal (or infinite) SSEs give different starts
+            int best = -1;
+            for(int c = 0; c < candidates; c++) {
+                if(!picked[c] && (best < 0 || gridSse[c] < gridSse[best])) {
+                    best = c;
+                }
+            }
+            System.arraycopy(grid, best * d, results, s * d, d);
+            picked[best] = true;
+        }
+        this.pool.invoke(new RangeTask(0, starts,
+                s -> resultSse[s] = this.nelderMead(method, x, length, spacing, results, s * d)));
+        int best = 0;
+        for(int s = 1; s < starts; s++) {
+            if(resultSse[s] < resultSse[best]) {
+                best = s;
+            }
+        }
+        double[] params = new double[d];
+        System.arraycopy(results, best * d, params, 0, d);
+        return params;
+    }
+
+    /**
+     * Runs a bounded Nelder-Mead search. Candidates outside the bounds are projected onto the bounds.
+     * @param method the exponential smoothing method
+     * @param x the values
+     * @param length amount of values
+     * @param spacing spacing between the values
+     * @param params contains the starting point and receives the result
+     * @param offset position of the first parameter in params
+     * @return the SSE of the result
+     */
+    private double nelderMead(ExponentialSmoothingMethod method, double[] x, int length, double spacing,
+                              double[] params, int offset) {
+        Workspace w = this.workspaces.get();
+        int d = method.getParameters();
+        double[] simplex = w.simplex;
+        double[] f = w.values;
+        //Initial simplex around the starting point
+        for(int v = 0; v <= d; v++) {
+            System.arraycopy(params, offset, simplex, v * d, d);
+            if(v > 0) {
+                int p = v - 1;
+                double step = INITIAL_STEP * (method.getUpperBound(p) - method.getLowerBound(p));
+                double moved = simplex[v * d + p] + step;
+                simplex[v * d + p] = moved <= method.getUpperBound(p) ? moved : simplex[v * d + p] - step;
+            }
+            f[v] = method.sse(x, length, spacing, simplex, v * d);
+        }
+        for(int iteration = 0; iteration < MAX_ITERATIONS; iteration++) {
+            int best = 0;
+            int worst = 0;
+            for(int v = 1; v <= d; v++) {
+                if(f[v] < f[best]) {
+                    best = v;
+                }
+                if(f[v] > f[worst]) {
+                    worst = v;
+                }
+            }
+            int second = best;
+            for(int v = 0; v <= d; v++) {
+                if(v != worst && f[v] > f[second]) {
+                    second = v;
+                }
+            }
+            if(f[worst] - f[best] <= TOLERANCE * (Math.abs(f[best]) + TOLERANCE)) {
+                break;
+            }
+            //Centroid of all vertices except the worst one
+            for(int p = 0; p < d; p++) {
+                double sum = 0;
+                for(int v = 0; v <= d; v++) {
+                    if(v != worst) {
+                        sum += simplex[v * d + p];
+                    }
+                }
+                w.centroid[p] = sum / d;
+            }
+            double fr = this.trial(method, x, length, spacing, w.centroid, simplex, worst * d, -1, w.reflected);
+            if(fr < f[best]) {
+                double fe = this.trial(method, x, length, spacing, w.centroid, simplex, worst * d, -2, w.expanded);
+                if(fe < fr) {
+                    this.replace(simplex, worst * d, w.expanded, d, f, worst, fe);
+                }
+                else {
+                    this.replace(simplex, worst * d, w.reflected, d, f, worst, fr);
+                }
+            }
+            else if(fr < f[second]) {
+                this.replace(simplex, worst * d, w.reflected, d, f, worst, fr);
+            }
+            else {
+                double fc;
+                if(fr < f[worst]) {
+                    fc = this.trial(method, x, length, spacing, w.centroid, simplex, worst * d, -0.5, w.contracted);
+                }
+                else {
+                    fc = this.trial(method, x, length, spacing, w.centroid, simplex, worst * d, 0.5, w.contracted);
+                }
+                if(fc < Math.min(fr, f[worst])) {
+                    this.replace(simplex, worst * d, w.contracted, d, f, worst, fc);
+                }
+                else {
+                    //Shrink towards the best vertex
+                    for(int v = 0; v <= d; v++) {
+                        if(v != best) {
+                            for(int p = 0; p < d; p++) {
+                                double bestP = simplex[best * d + p];
+                                simplex[v * d + p] = bestP + 0.5 * (simplex[v * d + p] - bestP);
+                            }
+                            f[v] = method.sse(x, length, spacing, simplex, v * d);
+                        }
+                    }
+                }
+            }
+        }
+        int best = 0;
+        for(int v = 1; v <= d; v++) {
+            if(f[v] < f[best]) {
+                best = v;
+            }
+        }
+        System.arraycopy(simplex, best * d, params, offset, d);
+        return f[best];
+    }
+
+    /**
+     * Calculates the trial point centroid + coefficient * (vertex - centroid), projects it onto the bounds and
+     * evaluates it.
+     * @return the SSE of the trial point
+     */
+    private double trial(ExponentialSmoothingMethod method, double[] x, int length, double spacing,
+                         double[] centroid, double[] simplex, int vertex, double coefficient, double[] point) {
+        for(int p = 0; p < method.getParameters(); p++) {
+            double value = centroid[p] + coefficient * (simplex[vertex + p] - centroid[p]);
+            point[p] = Math.max(method.getLowerBound(p), Math.min(method.getUpperBound(p), value));
+        }
+        return method.sse(x, length, spacing, point, 0);
+    }
+
+    /**
+     * Replaces a vertex of the simplex
+     */
+    private void replace(double[] simplex, int vertex, double[] point, int d, double[] f, int v, double value) {
+        System.arraycopy(point, 0, simplex, vertex, d);
+        f[v] = value;
+    }
+
+    /**
+     * The arrays one Nelder-Mead search needs. Every worker thread keeps one workspace.
+     */
+    private static final class Workspace {
+        final double[] simplex = new double[(MAX_PARAMETERS + 1) * MAX_PARAMETERS];
+        final double[] values = new double[MAX_PARAMETERS + 1];
+        final double[] centroid = new double[MAX_PARAMETERS];
+        final double[] reflected = new double[MAX_PARAMETERS];
+        final double[] expanded = new double[MAX_PARAMETERS];
+        final double[] contracted = new double[MAX_PARAMETERS];
+    }
+}
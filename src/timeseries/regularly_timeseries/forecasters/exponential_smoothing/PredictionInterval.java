@@ -0,0 +1,79 @@
+/*
+ * This library is free software; you can redistribute it and/or modify it under the terms of
+ * the GNU Lesser General Public License as published by the Free Software Foundation.
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ */
+
+package timeseries.regularly_timeseries.forecasters.exponential_smoothing;
+
+/**
+ * The lower and upper bounds of the forecasts for the horizons 1..h, which contain the future value with a
+ * probability of "level" (e.g. 0.95).
+ */
+public class PredictionInterval {
+    /**
+     * The probability, that the future value lies between the bounds
+     */
+    private final double level;
+    /**
+     * The lower bounds of the horizons 1..h
+     */
+    private final double[] lower;
+    /**
+     * The upper bounds of the horizons 1..h
+     */
+    private final double[] upper;
+
+    /**
+     * Initialize a PredictionInterval
+     * @param level the probability, that the future value lies between the bounds
+     * @param lower the lower bounds of the horizons 1..h
+     * @param upper the upper bounds of the horizons 1..h
+     */
+    public PredictionInterval(double level, double[] lower, double[] upper) {
+        if(lower.length != upper.length) {
+            throw new IllegalArgumentException("There are " + lower.length + " lower, but " + upper.length
+                    + " upper bounds");
+        }
+        this.level = level;
+        this.lower = lower;
+        this.upper = upper;
+    }
+
+    /**
+     * Gets the probability, that the future value lies between the bounds
+     * @return the level
+     */
+    public double getLevel() {
+        return level;
+    }
+
+    /**
+     * Gets the amount of forecast steps
+     * @return h
+     */
+    public int getHorizon() {
+        return lower.length;
+    }
+
+    /**
+     * Gets the lower bound of the forecast "step" steps ahead
+     * @param step between 1 and h
+     * @return the lower bound
+     */
+    public double getLower(int step) {
+        return lower[step - 1];
+    }
+
+    /**
+     * Gets the upper bound of the forecast "step" steps ahead
+     * @param step between 1 and h
+     * @return the upper bound
+     */
+    public double getUpper(int step) {
+        return upper[step - 1];
+    }
+}
@@ -0,0 +1,258 @@
+/*
+ * This library is free software; you can redistribute it and/or modify it under the terms of
+ * the GNU Lesser General Public License as published by the Free Software Foundation.
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ */
+
+package timeseries.regularly_timeseries.forecasters.exponential_smoothing;
+
+import timeseries.RegularlyTimeSeries;
+import timeseries.concurrent.RangeTask;
+import timeseries.statistics.NormalDistribution;
+
+import java.util.Arrays;
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Calculates prediction intervals for the exponential smoothing methods.
+ * The one-step forecast errors of the fit estimate the error distribution.
+ * The methods with an additive trend (SIMPLE, HOLTS_LINEAR, DAMPED_TREND) are linear, so the variance of the
+ * h-step forecast has got a closed form: sigma^2 * (1 + c_1^2 + .. + c_(h-1)^2), where c_j is the effect of an
+ * error on the forecast j steps later. The bounds are forecast -+ z * standard deviation.
+ * The methods with a multiplicative trend haven't got such a formula, so sample paths are simulated: every path
+ * continues the recursion of the method (the step of its OnlineForecaster) with errors, which are drawn from the
+ * one-step forecast errors (bootstrap). The bounds are the quantiles of the paths. All paths are advanced one step
+ * at a time in blocks on a fork-join pool, every block with its own split SplittableRandom, so the result only
+ * depends on the seed. Only the paths' values of the current step are kept, the quantiles are taken per step.
+ */
+public class PredictionIntervals {
+    /**
+     * Default amount of simulated paths
+     */
+    public static final int DEFAULT_PATHS = 10000;
+    /**
+     * Amount of paths, which are simulated by one task
+     */
+    private static final int BLOCK = 256;
+
+    /**
+     * The pool, which simulates the paths
+     */
+    private final ForkJoinPool pool;
+
+    /**
+     * Initialize PredictionIntervals, which use the common pool.
+     */
+    public PredictionIntervals() {
+        this(ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Initialize PredictionIntervals
+     * @param pool the pool, which simulates the paths
+     */
+    public PredictionIntervals(ForkJoinPool pool) {
+        this.pool = pool;
+    }
+
+    /**
+     * Calculates prediction intervals, analytically for the additive methods and by simulation (with
+     * DEFAULT_PATHS paths and the seed 0) for the multiplicative ones.
+     * @param ts the time series, at least 3 values
+     * @param method the exponential smoothing method
+     * @param params the parameters, ordered alpha, beta, damped
+     * @param h forecast steps
+     * @param levels the probabilities, e.g. 0.8 and 0.95
+     * @return an interval for every level
+     */
+    public PredictionInterval[] compute(RegularlyTimeSeries ts, ExponentialSmoothingMethod method, double[] params,
+                                        int h, double... levels) {
+        if(isAdditive(method)) {
+            return this.analytic(ts, method, params, h, levels);
+        }
+        return this.simulate(ts, method, params, h, DEFAULT_PATHS, 0, levels);
+    }
+
+    /**
+     * Calculates prediction intervals with the closed form of the forecast variance.
+     * @param ts the time series, at least 3 values
+     * @param method SIMPLE, HOLTS_LINEAR or DAMPED_TREND
+     * @param params the parameters, ordered alpha, beta, damped
+     * @param h forecast steps
+     * @param levels the probabilities, e.g. 0.8 and 0.95
+     * @return an interval for every level
+     */
+    public PredictionInterval[] analytic(RegularlyTimeSeries ts, ExponentialSmoothingMethod method, double[] params,
+                                         int h, double... levels) {
+        if(!isAdditive(method)) {
+            throw new IllegalArgumentException(method + " hasn't got an analytic forecast variance");
+        }
+        double[] x = ts.toArray();
+        double[] residuals = new double[x.length];
+        OnlineForecaster forecaster = method.forecaster(ts.getSpacing(), params, 0);
+        int count = fit(forecaster, x, residuals);
+        double sigma2 = 0;
+        for(int i = 0; i < count; i++) {
+            sigma2 += residuals[i] * residuals[i];
+        }
+        sigma2 /= count;
+        double[] point = new double[h];
+        forecaster.forecast(h, point);
+        double alpha = params[0];
+        //The trend equation of the methods smooths level differences, so an error changes the trend by alpha*beta
+        double beta = method == ExponentialSmoothingMethod.SIMPLE ? 0 : alpha * params[1];
+        double[] df = method == ExponentialSmoothingMethod.DAMPED_TREND ? DampingFactors.table(params[2], h) : null;
+        double[] z = new double[levels.length];
+        double[][] lower = new double[levels.length][h];
+        double[][] upper = new double[levels.length][h];
+        for(int l = 0; l < levels.length; l++) {
+            z[l] = NormalDistribution.quantile(0.5 + levels[l] / 2);
+        }
+        double sum = 0;
+        for(int k = 0; k < h; k++) {
+            double deviation = Math.sqrt(sigma2 * (1 + sum));
+            for(int l = 0; l < levels.length; l++) {
+                lower[l][k] = point[k] - z[l] * deviation;
+                upper[l][k] = point[k] + z[l] * deviation;
+            }
+            double c = alpha + beta * (df != null ? df[k] : k + 1);
+            sum += c * c;
+        }
+        return intervals(levels, lower, upper);
+    }
+
+    /**
+     * Calculates prediction intervals from the quantiles of simulated sample paths.
+     * @param ts the time series, at least 3 values
+     * @param method the exponential smoothing method
+     * @param params the parameters, ordered alpha, beta, damped
+     * @param h forecast steps
+     * @param paths amount of simulated paths
+     * @param seed the seed of the random numbers
+     * @param levels the probabilities, e.g. 0.8 and 0.95
+     * @return an interval for every level
+     */
+    public PredictionInterval[] simulate(RegularlyTimeSeries ts, ExponentialSmoothingMethod method, double[] params,
+                                         int h, int paths, long seed, double... levels) {
+        if(paths < 1) {
+            throw new IllegalArgumentException("Illegal amount of paths: " + paths);
+        }
+        double[] x = ts.toArray();
+        double[] residuals = new double[x.length];
+        OnlineForecaster forecaster = method.forecaster(ts.getSpacing(), params, 0);
+        int count = fit(forecaster, x, residuals);
+        double[] pathLevels = new double[paths];
+        double[] trends = new double[paths];
+        Arrays.fill(pathLevels, forecaster.getLevel());
+        Arrays.fill(trends, forecaster.getTrend());
+        int blocks = (paths + BLOCK - 1) / BLOCK;
+        SplittableRandom[] randoms = new SplittableRandom[blocks];
+        OnlineForecaster[] steppers = new OnlineForecaster[blocks];
+        SplittableRandom random = new SplittableRandom(seed);
+        for(int b = 0; b < blocks; b++) {
+            randoms[b] = random.split();
+            steppers[b] = method.forecaster(ts.getSpacing(), params, 0);
+        }
+        //All paths are advanced one step at a time, so only the values of one step are kept (not h * paths)
+        double[] column = new double[paths];
+        double[][] lower = new double[levels.length][h];
+        double[][] upper = new double[levels.length][h];
+        for(int k = 0; k < h; k++) {
+            this.pool.invoke(new RangeTask(0, blocks, b -> {
+                SplittableRandom r = randoms[b];
+                OnlineForecaster stepper = steppers[b];
+                int to = Math.min((b + 1) * BLOCK, paths);
+                for(int p = b * BLOCK; p < to; p++) {
+                    column[p] = stepper.simulateStep(pathLevels[p], trends[p], residuals[r.nextInt(count)]);
+                    pathLevels[p] = stepper.getLevel();
+                    trends[p] = stepper.getTrend();
+                }
+            }));
+            for(int l = 0; l < levels.length; l++) {
+                lower[l][k] = quantile(column, (1 - levels[l]) / 2);
+                upper[l][k] = quantile(column, (1 + levels[l]) / 2);
+            }
+        }
+        return intervals(levels, lower, upper);
+    }
+
+    /**
+     * Is the trend of the method additive (or not existing)?
+     */
+    private static boolean isAdditive(ExponentialSmoothingMethod method) {
+        return method == ExponentialSmoothingMethod.SIMPLE || method == ExponentialSmoothingMethod.HOLTS_LINEAR
+                || method == ExponentialSmoothingMethod.DAMPED_TREND;
+    }
+
+    /**
+     * Feeds the values to the forecaster and keeps the one-step forecast errors. The first two values only
+     * initialize the state.
+     * @return amount of errors
+     */
+    private static int fit(OnlineForecaster forecaster, double[] x, double[] residuals) {
+        if(x.length < 3) {
+            throw new IllegalArgumentException("The time series needs at least 3 values");
+        }
+        double[] forecast = new double[1];
+        int count = 0;
+        for(double value : x) {
+            if(forecaster.getCount() >= 2) {
+                forecaster.forecast(1, forecast);
+                residuals[count++] = value - forecast[0];
+            }
+            forecaster.update(value);
+        }
+        return count;
+    }
+
+    private static PredictionInterval[] intervals(double[] levels, double[][] lower, double[][] upper) {
+        PredictionInterval[] intervals = new PredictionInterval[levels.length];
+        for(int l = 0; l < levels.length; l++) {
+            intervals[l] = new PredictionInterval(levels[l], lower[l], upper[l]);
+        }
+        return intervals;
+    }
+
+    /**
+     * Finds the q-quantile (nearest rank) with quickselect in O(n). It reorders the values.
+     */
+    private static double quantile(double[] values, double q) {
+        int k = (int) Math.min(Math.max(Math.ceil(q * values.length) - 1, 0), values.length - 1);
+        int low = 0;
+        int high = values.length - 1;
+        while(low < high) {
+            double pivot = values[(low + high) >>> 1];
+            int i = low;
+            int j = high;
+            while(i <= j) {
+                while(values[i] < pivot) {
+                    i++;
+                }
+                while(values[j] > pivot) {
+                    j--;
+                }
+                if(i <= j) {
+                    double swap = values[i];
+                    values[i] = values[j];
+                    values[j] = swap;
+                    i++;
+                    j--;
+                }
+            }
+            if(k <= j) {
+                high = j;
+            }
+            else if(k >= i) {
+                low = i;
+            }
+            else {
+                return values[k];
+            }
+        }
+        return values[k];
+    }
+}
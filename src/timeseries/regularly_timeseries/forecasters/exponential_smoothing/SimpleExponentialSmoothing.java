@@ -10,6 +10,7 @@
 package timeseries.regularly_timeseries.forecasters.exponential_smoothing;
 
 import timeseries.RegularlyTimeSeries;
+import timeseries.storage.SeriesBlock;
 
 
 /**
@@ -31,10 +32,11 @@ public class SimpleExponentialSmoothing {
      */
     public static RegularlyTimeSeries fit(RegularlyTimeSeries ts, double alpha, long h) {
         RegularlyTimeSeries rts = new RegularlyTimeSeries(ts.getSpacing());
+        long size = ts.size();
         double lt_1 = ts.getX(0);
         boolean first = true;
         double lt = 0;
-        for(long i = 0; i < ts.size(); i++) {
+        for(long i = 0; i < size; i++) {
             lt = alpha*ts.getX(i)+(1-alpha)*lt_1;
             if(first) {
                 rts.addFirstDataPoint(ts.getT(0),lt);
@@ -51,10 +53,37 @@ public class SimpleExponentialSmoothing {
         return rts;
     }
 
-
-
-
-
-
-
+    /**
+     * Fits SES to every series of a block and writes the results into preallocated blocks.
+     * All series are walked in lockstep: for every tick, the inner loop updates all series, so it runs over
+     * neighbouring values and can be vectorized by the JIT.
+     * @param ts original series
+     * @param alpha The smoothing parameter alpha with 0 < alpha <= 1 controls the weights decrease.
+     * @param fitted block for the smoothed values (same shape as ts) or null
+     * @param forecasts block for the forecasts, its length is the forecasting range
+     */
+    public static void fit(SeriesBlock ts, double alpha, SeriesBlock fitted, SeriesBlock forecasts) {
+        BatchChecks.check(ts, 1, fitted, forecasts);
+        int series = ts.getSeries();
+        int length = ts.getLength();
+        double[] x = ts.getValues();
+        double[] f = fitted == null ? null : fitted.getValues();
+        double[] level = new double[series];
+        System.arraycopy(x, 0, level, 0, series);
+        for(int t = 0; t < length; t++) {
+            int row = t * series;
+            for(int s = 0; s < series; s++) {
+                level[s] = alpha * x[row + s] + (1 - alpha) * level[s];
+            }
+            if(f != null) {
+                System.arraycopy(level, 0, f, row, series);
+            }
+        }
+        if(forecasts != null) {
+            double[] fc = forecasts.getValues();
+            for(int k = 0; k < forecasts.getLength(); k++) {
+                System.arraycopy(level, 0, fc, k * series, series);
+            }
+        }
+    }
 }
@@ -0,0 +1,51 @@
+/*
+ * This library is free software; you can redistribute it and/or modify it under the terms of
+ * the GNU Lesser General Public License as published by the Free Software Foundation.
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ */
+
+package timeseries.regularly_timeseries.forecasters.exponential_smoothing;
+
+/**
+ * The online version of SimpleExponentialSmoothing.
+ */
+public class SimpleExponentialSmoothingForecaster extends OnlineForecaster {
+    /**
+     * The smoothing parameter alpha with 0 < alpha <= 1
+     */
+    private final double alpha;
+
+    /**
+     * Initialize a SimpleExponentialSmoothingForecaster
+     * @param alpha The smoothing parameter alpha with 0 < alpha <= 1 controls the weights decrease.
+     */
+    public SimpleExponentialSmoothingForecaster(double alpha) {
+        super(1);
+        this.alpha = alpha;
+    }
+
+    @Override
+    protected void start(double x0) {
+        this.level = x0;
+    }
+
+    @Override
+    protected void initialize(double x0, double x1) {
+        this.level = x0;
+    }
+
+    @Override
+    protected void step(double x) {
+        this.level = this.alpha * x + (1 - this.alpha) * this.level;
+    }
+
+    @Override
+    protected void forecastState(int h, double[] dst) {
+        for(int k = 0; k < h; k++) {
+            dst[k] = this.level;
+        }
+    }
+}
@@ -11,10 +11,15 @@ package timeseries.regularly_timeseries.normalization;
 
 
 import timeseries.RegularlyTimeSeries;
+import timeseries.storage.ArrayStorage;
 
 /**
  * Created by apolol92 on 20.08.15.
  * Normalize can be used for better time series comparison..
+ * The statistics are calculated in one fused pass (the time series caches them), the normalized values are
+ * written in a second pass. The methods on arrays write into a given array, which can be the input itself.
+ * For live data, which can't be normalized by the statistics of all values, use SlidingZScore or
+ * SlidingRobustScaler.
  */
 public class Normalizer {
 
@@ -24,18 +29,11 @@ public class Normalizer {
      * @return normalized time series
      */
     public static RegularlyTimeSeries minMaxNormalization(RegularlyTimeSeries ts) {
-        double min = ts.min();
-        double max = ts.max();
-        long size = ts.size();
-        RegularlyTimeSeries nTimeSeries = new RegularlyTimeSeries(ts.getSpacing());
-        nTimeSeries.addFirstDataPoint(ts.getT(0),(ts.getX(0)-min)/(max-min));
-        /**
-         * Bad performance..
-         */
-        for(long i = 1; i < size; i++) {
-            nTimeSeries.addX((ts.getX(i)-min)/(max-min));
+        double[] values = ts.toArray();
+        if(values.length > 0) {
+            scale(values, 0, values.length, ts.min(), ts.max() - ts.min(), values);
         }
-        return  nTimeSeries;
+        return copyOf(ts, values);
     }
 
     /**
@@ -44,17 +42,106 @@ public class Normalizer {
      * @return normalized time series
      */
     public static RegularlyTimeSeries zScoreNormalization(RegularlyTimeSeries ts) {
-        double mean = ts.mean();
-        double stddev = ts.standardDeviation();
+        double[] values = ts.toArray();
+        if(values.length > 0) {
+            scale(values, 0, values.length, ts.mean(), ts.standardDeviation(), values);
+        }
+        return copyOf(ts, values);
+    }
+
+    /**
+     * Calculates the min/max-normalization in place, the time series has to be changeable.
+     * @param ts which time series should be normalized?
+     */
+    public static void minMaxNormalizationInPlace(RegularlyTimeSeries ts) {
+        if(ts.size() > 0) {
+            double min = ts.min();
+            scaleInPlace(ts, min, ts.max() - min);
+        }
+    }
+
+    /**
+     * Calculate the z-score normalization in place, the time series has to be changeable.
+     * @param ts which time series should be normalized?
+     */
+    public static void zScoreNormalizationInPlace(RegularlyTimeSeries ts) {
+        if(ts.size() > 0) {
+            scaleInPlace(ts, ts.mean(), ts.standardDeviation());
+        }
+    }
+
+    /**
+     * Calculates the min/max-normalization of values[from, from+length) and writes it into dst[0, length).
+     * Min and max are found in one pass.
+     * @param values the values
+     * @param from first index in values
+     * @param length amount of values
+     * @param dst array for the normalized values, can be values itself
+     * @return dst
+     */
+    public static double[] minMaxNormalization(double[] values, int from, int length, double[] dst) {
+        double min = Double.POSITIVE_INFINITY;
+        double max = Double.NEGATIVE_INFINITY;
+        for(int i = from; i < from + length; i++) {
+            double x = values[i];
+            if(x < min) {
+                min = x;
+            }
+            if(x > max) {
+                max = x;
+            }
+        }
+        return scale(values, from, length, min, max - min, dst);
+    }
+
+    /**
+     * Calculate the z-score normalization of values[from, from+length) and writes it into dst[0, length).
+     * Mean and standard deviation are calculated in one pass (Welford).
+     * @param values the values
+     * @param from first index in values
+     * @param length amount of values
+     * @param dst array for the normalized values, can be values itself
+     * @return dst
+     */
+    public static double[] zScoreNormalization(double[] values, int from, int length, double[] dst) {
+        double mean = 0;
+        double m2 = 0;
+        for(int i = 0; i < length; i++) {
+            double x = values[from + i];
+            double delta = x - mean;
+            mean += delta / (i + 1);
+            m2 += delta * (x - mean);
+        }
+        return scale(values, from, length, mean, Math.sqrt(m2 / length), dst);
+    }
+
+    /**
+     * Writes (x - offset) / divisor of every value into dst
+     */
+    private static double[] scale(double[] values, int from, int length, double offset, double divisor,
+                                  double[] dst) {
+        //dst[i] is written after values[from+i] was read, so it works in place
+        for(int i = 0; i < length; i++) {
+            dst[i] = (values[from + i] - offset) / divisor;
+        }
+        return dst;
+    }
+
+    /**
+     * Writes (x - offset) / divisor of every value back into the time series
+     */
+    private static void scaleInPlace(RegularlyTimeSeries ts, double offset, double divisor) {
         long size = ts.size();
-        RegularlyTimeSeries nTimeSeries = new RegularlyTimeSeries(ts.getSpacing());
-        nTimeSeries.addFirstDataPoint(ts.getT(0),(ts.getX(0)-mean)/stddev);
-        /**
-         * Bad performance..
-         */
-        for(long i = 1; i < size; i++) {
-            nTimeSeries.addX((ts.getX(i) - mean) / stddev);
-        }
-        return  nTimeSeries;
+        for(long i = 0; i < size; i++) {
+            ts.setX(i, (ts.getX(i) - offset) / divisor);
+        }
+    }
+
+    /**
+     * Creates a time series with the t-values of ts, which adopts the given x-values without copying them
+     */
+    private static RegularlyTimeSeries copyOf(RegularlyTimeSeries ts, double[] values) {
+        double t0 = values.length > 0 ? ts.getT(0) : 0;
+        return new RegularlyTimeSeries(ts.getSpacing(), t0, ArrayStorage.wrap(values, values.length));
     }
 }
@@ -0,0 +1,152 @@
+/*
+ * This library is free software; you can redistribute it and/or modify it under the terms of
+ * the GNU Lesser General Public License as published by the Free Software Foundation.
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ */
+
+package timeseries.regularly_timeseries.normalization;
+
+import java.util.Arrays;
+
+/**
+ * Normalizes a stream of values robustly by a sliding window: every value is normalized by the median and the
+ * median absolute deviation (MAD) of the last "window" values (including itself), (x - median) / (1.4826 * MAD).
+ * Outliers hardly change median and MAD, so they don't squeeze the other values like in a z-score.
+ * The window is kept in a ring buffer (arrival order) and in a sorted array. A new value replaces the oldest one
+ * in the sorted array by binary search and one arraycopy, the median is read directly and the MAD is found by
+ * merging the deviations on both sides of the median, so an update costs O(window) without any allocation.
+ */
+public class SlidingRobustScaler {
+    /**
+     * Makes the MAD comparable to the standard deviation of normal distributed values
+     */
+    private static final double MAD_SCALE = 1.4826;
+
+    /**
+     * The last values in arrival order
+     */
+    private final double[] ring;
+    /**
+     * The last values sorted ascending, only the first "count" are in use
+     */
+    private final double[] sorted;
+    /**
+     * The position of the next value in the ring
+     */
+    private int position;
+    /**
+     * Amount of values in the window
+     */
+    private int count;
+
+    /**
+     * Initialize a SlidingRobustScaler
+     * @param window amount of values, which define median and MAD
+     */
+    public SlidingRobustScaler(int window) {
+        if(window < 1) {
+            throw new IllegalArgumentException("Illegal window: " + window);
+        }
+        this.ring = new double[window];
+        this.sorted = new double[window];
+    }
+
+    /**
+     * Gets the size of the window
+     * @return the window
+     */
+    public int getWindow() {
+        return ring.length;
+    }
+
+    /**
+     * Removes all values
+     */
+    public void reset() {
+        this.position = 0;
+        this.count = 0;
+    }
+
+    /**
+     * Adds a value to the window and normalizes it.
+     * If the MAD is 0 (more than half of the window has got the same value), the result is 0.
+     * @param x the new value, not NaN
+     * @return the robust score of x
+     */
+    public double normalize(double x) {
+        if(Double.isNaN(x)) {
+            throw new IllegalArgumentException("NaN can't be sorted into the window");
+        }
+        if(this.count == this.ring.length) {
+            //Remove the oldest value from the sorted array
+            int index = Arrays.binarySearch(this.sorted, 0, this.count, this.ring[this.position]);
+            System.arraycopy(this.sorted, index + 1, this.sorted, index, this.count - index - 1);
+            this.count--;
+        }
+        int index = Arrays.binarySearch(this.sorted, 0, this.count, x);
+        if(index < 0) {
+            index = -index - 1;
+        }
+        System.arraycopy(this.sorted, index, this.sorted, index + 1, this.count - index);
+        this.sorted[index] = x;
+        this.count++;
+        this.ring[this.position] = x;
+        this.position = this.position + 1 == this.ring.length ? 0 : this.position + 1;
+        double median = this.median();
+        double mad = MAD_SCALE * this.medianAbsoluteDeviation(median);
+        return mad > 0 ? (x - median) / mad : 0;
+    }
+
+    /**
+     * Normalizes values[from, from+length) one after another and writes them into dst[0, length)
+     * @param values the values
+     * @param from first index in values
+     * @param length amount of values
+     * @param dst array for the normalized values, can be values itself
+     * @return dst
+     */
+    public double[] normalize(double[] values, int from, int length, double[] dst) {
+        for(int i = 0; i < length; i++) {
+            dst[i] = this.normalize(values[from + i]);
+        }
+        return dst;
+    }
+
+    /**
+     * The median of the window
+     */
+    private double median() {
+        int middle = this.count >>> 1;
+        return (this.count & 1) == 1 ? this.sorted[middle] : (this.sorted[middle - 1] + this.sorted[middle]) / 2;
+    }
+
+    /**
+     * The median of the absolute deviations from the median. The deviations grow from the median to both ends of
+     * the sorted array, so the smallest deviations are found by merging both sides.
+     */
+    private double medianAbsoluteDeviation(double median) {
+        int middle = this.count >>> 1;
+        //Walk outwards from the middle, an odd window starts with the median itself (deviation 0)
+        int left = middle - 1;
+        int right = middle;
+        double previous = 0;
+        double current = 0;
+        for(int k = 0; k <= middle; k++) {
+            double leftDeviation = left >= 0 ? median - this.sorted[left] : Double.POSITIVE_INFINITY;
+            double rightDeviation = right < this.count ? this.sorted[right] - median : Double.POSITIVE_INFINITY;
+            previous = current;
+            if(leftDeviation < rightDeviation) {
+                current = leftDeviation;
+                left--;
+            }
+            else {
+                current = rightDeviation;
+                right++;
+            }
+        }
+        return (this.count & 1) == 1 ? current : (previous + current) / 2;
+    }
+}
@@ -0,0 +1,112 @@
+/*
+ * This library is free software; you can redistribute it and/or modify it under the terms of
+ * the GNU Lesser General Public License as published by the Free Software Foundation.
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ */
+
+package timeseries.regularly_timeseries.normalization;
+
+/**
+ * Normalizes a stream of values by the z-score of a sliding window: every value is normalized by the mean and the
+ * standard deviation of the last "window" values (including itself).
+ * The window is a ring buffer, mean and squared deviations are updated in O(1) per value (Welford), there isn't
+ * any allocation after the initialization.
+ */
+public class SlidingZScore {
+    /**
+     * The last values
+     */
+    private final double[] ring;
+    /**
+     * The position of the next value in the ring
+     */
+    private int position;
+    /**
+     * Amount of values in the window
+     */
+    private int count;
+    /**
+     * The mean of the window
+     */
+    private double mean;
+    /**
+     * The sum of squared deviations from the mean
+     */
+    private double m2;
+
+    /**
+     * Initialize a SlidingZScore
+     * @param window amount of values, which define mean and standard deviation
+     */
+    public SlidingZScore(int window) {
+        if(window < 1) {
+            throw new IllegalArgumentException("Illegal window: " + window);
+        }
+        this.ring = new double[window];
+    }
+
+    /**
+     * Gets the size of the window
+     * @return the window
+     */
+    public int getWindow() {
+        return ring.length;
+    }
+
+    /**
+     * Removes all values
+     */
+    public void reset() {
+        this.position = 0;
+        this.count = 0;
+        this.mean = 0;
+        this.m2 = 0;
+    }
+
+    /**
+     * Adds a value to the window and normalizes it.
+     * If all values of the window are equal, the result is 0.
+     * @param x the new value
+     * @return the z-score of x
+     */
+    public double normalize(double x) {
+        if(this.count < this.ring.length) {
+            this.count++;
+            double delta = x - this.mean;
+            this.mean += delta / this.count;
+            this.m2 += delta * (x - this.mean);
+        }
+        else {
+            //Replace the oldest value
+            double old = this.ring[this.position];
+            double previousMean = this.mean;
+            this.mean += (x - old) / this.count;
+            this.m2 += (x - old) * (x - this.mean + old - previousMean);
+            if(this.m2 < 0) {
+                this.m2 = 0;
+            }
+        }
+        this.ring[this.position] = x;
+        this.position = this.position + 1 == this.ring.length ? 0 : this.position + 1;
+        double deviation = Math.sqrt(this.m2 / this.count);
+        return deviation > 0 ? (x - this.mean) / deviation : 0;
+    }
+
+    /**
+     * Normalizes values[from, from+length) one after another and writes them into dst[0, length)
+     * @param values the values
+     * @param from first index in values
+     * @param length amount of values
+     * @param dst array for the normalized values, can be values itself
+     * @return dst
+     */
+    public double[] normalize(double[] values, int from, int length, double[] dst) {
+        for(int i = 0; i < length; i++) {
+            dst[i] = this.normalize(values[from + i]);
+        }
+        return dst;
+    }
+}
@@ -0,0 +1,396 @@
+/*
+ * This library is free software; you can redistribute it and/or modify it under the terms of
+ * the GNU Lesser General Public License as published by the Free Software Foundation.
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ */
+
+package timeseries.regularly_timeseries.similarity;
+
+import timeseries.RegularlyTimeSeries;
+
+import java.util.Arrays;
+
+/**
+ * Dynamic Time Warping (DTW) distance with a Sakoe-Chiba band.
+ * The distance is the square root of the minimal sum of squared differences along a warping path, which never
+ * leaves the band |i - j| <= band. Only two rows of the cost matrix are kept in memory.
+ * An instance belongs to one query and finds the best matching subsequence of a (long) time series like the
+ * UCR suite: every window is checked with the cheap lower bounds LB_Kim and LB_Keogh (in both directions) first,
+ * the DTW is only calculated, if all of them are smaller than the best distance so far, and it is abandoned
+ * early with the help of the remaining LB_Keogh bounds.
+ */
+public class DynamicTimeWarping {
+    /**
+     * Windows with a smaller standard deviation are treated as flat
+     */
+    private static final double MIN_DEVIATION = 1e-8;
+
+    /**
+     * The (normalized) query
+     */
+    private final double[] query;
+    /**
+     * The positions of the query ordered by the absolute value, LB_Keogh abandons earlier this way
+     */
+    private final int[] order;
+    /**
+     * The upper envelope of the query
+     */
+    private final double[] upper;
+    /**
+     * The lower envelope of the query
+     */
+    private final double[] lower;
+    /**
+     * Width of the Sakoe-Chiba band
+     */
+    private final int band;
+    /**
+     * Z-normalize the query and the windows?
+     */
+    private final boolean normalize;
+    /**
+     * Buffers of the search
+     */
+    private final double[] window;
+    private final double[] keoghQuery;
+    private final double[] keoghData;
+    private final double[] cumulative;
+    private final double[] previousRow;
+    private final double[] currentRow;
+
+    /**
+     * Initialize a DynamicTimeWarping for a query
+     * @param query the query
+     * @param band width of the Sakoe-Chiba band in DataPoints
+     * @param normalize z-normalize the query and every compared window
+     */
+    public DynamicTimeWarping(RegularlyTimeSeries query, int band, boolean normalize) {
+        if(band < 0) {
+            throw new IllegalArgumentException("Illegal band: " + band);
+        }
+        if(query.size() == 0) {
+            throw new IllegalArgumentException("The query is empty");
+        }
+        this.query = query.toArray();
+        this.band = band;
+        this.normalize = normalize;
+        int m = this.query.length;
+        if(normalize) {
+            normalize(this.query, 0, m, this.query);
+        }
+        Integer[] positions = new Integer[m];
+        for(int i = 0; i < m; i++) {
+            positions[i] = i;
+        }
+        Arrays.sort(positions, (i, j) -> Double.compare(Math.abs(this.query[j]), Math.abs(this.query[i])));
+        this.order = new int[m];
+        for(int i = 0; i < m; i++) {
+            this.order[i] = positions[i];
+        }
+        this.upper = new double[m];
+        this.lower = new double[m];
+        envelope(this.query, 0, m, band, this.upper, this.lower);
+        this.window = new double[m];
+        this.keoghQuery = new double[m];
+        this.keoghData = new double[m];
+        this.cumulative = new double[m + 1];
+        this.previousRow = new double[m];
+        this.currentRow = new double[m];
+    }
+
+    /**
+     * Calculates the DTW distance between two time series
+     * @param a the first time series
+     * @param b the second time series
+     * @param band width of the Sakoe-Chiba band in DataPoints. It is widened to the difference of the sizes,
+     *             so that the end of both time series can be reached.
+     * @return the DTW distance
+     */
+    public static double distance(RegularlyTimeSeries a, RegularlyTimeSeries b, int band) {
+        double[] x = a.toArray();
+        double[] y = b.toArray();
+        if(x.length == 0 || y.length == 0) {
+            throw new IllegalArgumentException("The time series is empty");
+        }
+        return Math.sqrt(distance(x, x.length, y, y.length, band, null, Double.POSITIVE_INFINITY,
+                new double[y.length], new double[y.length]));
+    }
+
+    /**
+     * Calculates the DTW distance between the query and a time series of the same size
+     * @param ts the time series
+     * @return the DTW distance
+     */
+    public double distance(RegularlyTimeSeries ts) {
+        int m = this.query.length;
+        if(ts.size() != m) {
+            throw new IllegalArgumentException("Expected " + m + " DataPoints, but got " + ts.size());
+        }
+        ts.getStorage().copyTo(0, this.window, 0, m);
+        if(this.normalize) {
+            normalize(this.window, 0, m, this.window);
+        }
+        return Math.sqrt(distance(this.query, m, this.window, m, this.band, null, Double.POSITIVE_INFINITY,
+                this.previousRow, this.currentRow));
+    }
+
+    /**
+     * Finds the subsequence of a time series with the smallest DTW distance to the query
+     * @param ts the time series, it must be at least as long as the query
+     * @return the best match (its source is always 0)
+     */
+    public Match search(RegularlyTimeSeries ts) {
+        int m = this.query.length;
+        if(ts.size() < m) {
+            throw new IllegalArgumentException("The time series is shorter than the query");
+        }
+        double[] data = ts.toArray();
+        int n = data.length;
+        //The envelope of the data is calculated once, normalizing is monotone, so it can be normalized per window
+        double[] dataUpper = new double[n];
+        double[] dataLower = new double[n];
+        envelope(data, 0, n, this.band, dataUpper, dataLower);
+        double best = Double.POSITIVE_INFINITY;
+        int bestOffset = 0;
+        //The window sums are slid over the values minus a reference (the window mean at the last recalculation)
+        //and recalculated every m windows like in the UCR suite, so large offsets don't cancel catastrophically
+        double reference = 0;
+        double sum = 0;
+        double squares = 0;
+        for(int offset = 0; offset + m <= n; offset++) {
+            double mean = 0;
+            double deviation = 1;
+            if(this.normalize) {
+                if(offset % m == 0) {
+                    reference = 0;
+                    for(int i = offset; i < offset + m; i++) {
+                        reference += data[i];
+                    }
+                    reference /= m;
+                    sum = 0;
+                    squares = 0;
+                    for(int i = offset; i < offset + m; i++) {
+                        double x = data[i] - reference;
+                        sum += x;
+                        squares += x * x;
+                    }
+                }
+                else {
+                    double out = data[offset - 1] - reference;
+                    double in = data[offset + m - 1] - reference;
+                    sum += in - out;
+                    squares += in * in - out * out;
+                }
+                double shift = sum / m;
+                mean = reference + shift;
+                deviation = Math.sqrt(Math.max(squares / m - shift * shift, 0));
+                if(deviation < MIN_DEVIATION) {
+                    deviation = 1;
+                }
+            }
+            if(this.lbKim(data, offset, mean, deviation, best) < best
+                    && this.lbKeoghQuery(data, offset, mean, deviation, best) < best
+                    && this.lbKeoghData(dataUpper, dataLower, offset, mean, deviation, best) < best) {
+                //The tighter bound helps to abandon the DTW early
+                double[] bound = this.sumOf(this.keoghQuery) > this.sumOf(this.keoghData)
+                        ? this.keoghQuery : this.keoghData;
+                this.cumulative[m] = 0;
+                for(int i = m - 1; i >= 0; i--) {
+                    this.cumulative[i] = this.cumulative[i + 1] + bound[i];
+                }
+                for(int i = 0; i < m; i++) {
+                    this.window[i] = (data[offset + i] - mean) / deviation;
+                }
+                double distance = distance(this.query, m, this.window, m, this.band, this.cumulative, best,
+                        this.previousRow, this.currentRow);
+                if(distance < best) {
+                    best = distance;
+                    bestOffset = offset;
+                }
+            }
+        }
+        return new Match(0, bestOffset, Math.sqrt(best));
+    }
+
+    /**
+     * Calculates the upper and lower envelope of values: the max and min within +-band of every position.
+     * It uses two monotone queues (Lemire), so it costs O(n) for every band.
+     * @param values the values
+     * @param from index of the first value
+     * @param length amount of values
+     * @param band half width of the envelope
+     * @param upper receives the upper envelope
+     * @param lower receives the lower envelope
+     */
+    public static void envelope(double[] values, int from, int length, int band, double[] upper, double[] lower) {
+        int[] maxQueue = new int[length];
+        int[] minQueue = new int[length];
+        int maxHead = 0;
+        int maxTail = 0;
+        int minHead = 0;
+        int minTail = 0;
+        for(int i = 0; i < length + band; i++) {
+            if(i < length) {
+                double x = values[from + i];
+                while(maxTail > maxHead && values[from + maxQueue[maxTail - 1]] <= x) {
+                    maxTail--;
+                }
+                maxQueue[maxTail++] = i;
+                while(minTail > minHead && values[from + minQueue[minTail - 1]] >= x) {
+                    minTail--;
+                }
+                minQueue[minTail++] = i;
+            }
+            int k = i - band;
+            if(k >= 0) {
+                while(maxQueue[maxHead] < k - band) {
+                    maxHead++;
+                }
+                while(minQueue[minHead] < k - band) {
+                    minHead++;
+                }
+                upper[k] = values[from + maxQueue[maxHead]];
+                lower[k] = values[from + minQueue[minHead]];
+            }
+        }
+    }
+
+    /**
+     * Calculates the squared DTW distance with two rolling rows.
+     * It is abandoned, as soon as the smallest value of a row (plus the bound of the rows, which can't be reached
+     * anymore) is at least limit. The returned value is at least limit then.
+     */
+    private static double distance(double[] a, int n, double[] b, int m, int band, double[] bound, double limit,
+                                   double[] previous, double[] current) {
+        int r = Math.max(band, Math.abs(n - m));
+        int previousHigh = -1;
+        for(int i = 0; i < n; i++) {
+            int low = Math.max(0, i - r);
+            int high = Math.min(m - 1, i + r);
+            double rowMin = Double.POSITIVE_INFINITY;
+            for(int j = low; j <= high; j++) {
+                double d = a[i] - b[j];
+                double cost = d * d;
+                if(i > 0 || j > 0) {
+                    double left = j > low ? current[j - 1] : Double.POSITIVE_INFINITY;
+                    double up = i > 0 && j <= previousHigh ? previous[j] : Double.POSITIVE_INFINITY;
+                    double diagonal = i > 0 && j > 0 && j - 1 <= previousHigh
+                            ? previous[j - 1] : Double.POSITIVE_INFINITY;
+                    cost += Math.min(left, Math.min(up, diagonal));
+                }
+                current[j] = cost;
+                if(cost < rowMin) {
+                    rowMin = cost;
+                }
+            }
+            double remaining = bound != null && i + r + 1 < bound.length ? bound[i + r + 1] : 0;
+            if(rowMin + remaining >= limit) {
+                return rowMin + remaining;
+            }
+            double[] swap = previous;
+            previous = current;
+            current = swap;
+            previousHigh = high;
+        }
+        return previous[m - 1];
+    }
+
+    /**
+     * LB_Kim: the first and the last points are always matched, the second and the second last points are matched
+     * with one of their neighbours.
+     */
+    private double lbKim(double[] data, int offset, double mean, double deviation, double limit) {
+        int m = this.query.length;
+        double x0 = (data[offset] - mean) / deviation;
+        double y0 = (data[offset + m - 1] - mean) / deviation;
+        double lb = square(x0 - this.query[0]) + (m > 1 ? square(y0 - this.query[m - 1]) : 0);
+        if(lb >= limit || m < 4) {
+            return lb;
+        }
+        double x1 = (data[offset + 1] - mean) / deviation;
+        lb += Math.min(square(x1 - this.query[0]),
+                Math.min(square(x0 - this.query[1]), square(x1 - this.query[1])));
+        if(lb >= limit) {
+            return lb;
+        }
+        double y1 = (data[offset + m - 2] - mean) / deviation;
+        lb += Math.min(square(y1 - this.query[m - 1]),
+                Math.min(square(y0 - this.query[m - 2]), square(y1 - this.query[m - 2])));
+        return lb;
+    }
+
+    /**
+     * LB_Keogh of the window against the envelope of the query. The single terms are kept in keoghQuery.
+     */
+    private double lbKeoghQuery(double[] data, int offset, double mean, double deviation, double limit) {
+        double lb = 0;
+        Arrays.fill(this.keoghQuery, 0);
+        for(int k = 0; k < this.order.length && lb < limit; k++) {
+            int i = this.order[k];
+            double x = (data[offset + i] - mean) / deviation;
+            double d = x > this.upper[i] ? x - this.upper[i] : x < this.lower[i] ? this.lower[i] - x : 0;
+            this.keoghQuery[i] = d * d;
+            lb += d * d;
+        }
+        return lb;
+    }
+
+    /**
+     * LB_Keogh of the query against the envelope of the window. The single terms are kept in keoghData.
+     */
+    private double lbKeoghData(double[] dataUpper, double[] dataLower, int offset, double mean, double deviation,
+                               double limit) {
+        double lb = 0;
+        int m = this.query.length;
+        Arrays.fill(this.keoghData, 0);
+        for(int k = 0; k < this.order.length && lb < limit; k++) {
+            int i = this.order[k];
+            //Near the borders of the window the envelope of the data is wider than needed, it stays a lower bound
+            double u = (dataUpper[offset + i] - mean) / deviation;
+            double l = (dataLower[offset + i] - mean) / deviation;
+            double q = this.query[i];
+            double d = q > u ? q - u : q < l ? l - q : 0;
+            this.keoghData[i] = d * d;
+            lb += d * d;
+        }
+        return lb;
+    }
+
+    private double sumOf(double[] values) {
+        double sum = 0;
+        for(double x : values) {
+            sum += x;
+        }
+        return sum;
+    }
+
+    private static double square(double x) {
+        return x * x;
+    }
+
+    /**
+     * Z-normalizes values into dst
+     */
+    private static void normalize(double[] values, int from, int length, double[] dst) {
+        double mean = 0;
+        for(int i = 0; i < length; i++) {
+            mean += values[from + i];
+        }
+        mean /= length;
+        double variance = 0;
+        for(int i = 0; i < length; i++) {
+            variance += square(values[from + i] - mean);
+        }
+        double deviation = Math.sqrt(variance / length);
+        if(deviation < MIN_DEVIATION) {
+            deviation = 1;
+        }
+        for(int i = 0; i < length; i++) {
+            dst[i] = (values[from + i] - mean) / deviation;
+        }
+    }
+}
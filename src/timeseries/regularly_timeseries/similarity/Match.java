@@ -0,0 +1,70 @@
+/*
+ * This library is free software; you can redistribute it and/or modify it under the terms of
+ * the GNU Lesser General Public License as published by the Free Software Foundation.
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ */
+
+package timeseries.regularly_timeseries.similarity;
+
+/**
+ * A result of a similarity search: the subsequence [offset, offset+length) of a source time series and its
+ * distance to the query.
+ */
+public class Match {
+    /**
+     * The position of the source time series (in the order they were added)
+     */
+    private final int source;
+    /**
+     * The index of the first DataPoint in the source time series
+     */
+    private final int offset;
+    /**
+     * The distance to the query
+     */
+    private final double distance;
+
+    /**
+     * Initialize a Match
+     * @param source the position of the source time series
+     * @param offset the index of the first DataPoint in the source time series
+     * @param distance the distance to the query
+     */
+    public Match(int source, int offset, double distance) {
+        this.source = source;
+        this.offset = offset;
+        this.distance = distance;
+    }
+
+    /**
+     * Gets the position of the source time series
+     * @return the position of the source time series
+     */
+    public int getSource() {
+        return source;
+    }
+
+    /**
+     * Gets the index of the first DataPoint in the source time series
+     * @return the offset
+     */
+    public int getOffset() {
+        return offset;
+    }
+
+    /**
+     * Gets the distance to the query
+     * @return the distance
+     */
+    public double getDistance() {
+        return distance;
+    }
+
+    @Override
+    public String toString() {
+        return this.source + "@" + this.offset + " : " + this.distance;
+    }
+}
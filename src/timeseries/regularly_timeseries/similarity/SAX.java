@@ -0,0 +1,61 @@
+/*
+ * This library is free software; you can redistribute it and/or modify it under the terms of
+ * the GNU Lesser General Public License as published by the Free Software Foundation.
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ */
+
+package timeseries.regularly_timeseries.similarity;
+
+import timeseries.statistics.NormalDistribution;
+
+/**
+ * Symbolic Aggregate approXimation (SAX) maps the window-means of a PAA onto symbols.
+ * The breakpoints between the symbols are the quantiles of the standard normal distribution, so every symbol is
+ * equally probable for z-normalized data. The symbols of a finer alphabet (2^bits symbols) can be reduced to a
+ * coarser alphabet by dropping the lowest bits, which is the base of the iSAX index.
+ */
+public final class SAX {
+
+    private SAX() {
+    }
+
+    /**
+     * Calculates the breakpoints of an alphabet
+     * @param alphabetSize amount of symbols, at least 2
+     * @return alphabetSize-1 ascending breakpoints
+     */
+    public static double[] breakpoints(int alphabetSize) {
+        if(alphabetSize < 2) {
+            throw new IllegalArgumentException("The alphabet needs at least 2 symbols: " + alphabetSize);
+        }
+        double[] breakpoints = new double[alphabetSize - 1];
+        for(int i = 1; i < alphabetSize; i++) {
+            breakpoints[i - 1] = NormalDistribution.quantile((double) i / alphabetSize);
+        }
+        return breakpoints;
+    }
+
+    /**
+     * Maps a value onto its symbol
+     * @param x the value
+     * @param breakpoints the breakpoints of the alphabet
+     * @return the symbol, the amount of breakpoints below x
+     */
+    public static int symbol(double x, double[] breakpoints) {
+        int low = 0;
+        int high = breakpoints.length;
+        while(low < high) {
+            int mid = (low + high) >>> 1;
+            if(breakpoints[mid] < x) {
+                low = mid + 1;
+            }
+            else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+}
@@ -0,0 +1,578 @@
+/*
+ * This library is free software; you can redistribute it and/or modify it under the terms of
+ * the GNU Lesser General Public License as published by the Free Software Foundation.
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ */
+
+package timeseries.regularly_timeseries.similarity;
+
+import timeseries.RegularlyTimeSeries;
+import timeseries.regularly_timeseries.transformation.PAA;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+
+/**
+ * An iSAX index for the k nearest neighbours (Euclidean distance) of a query.
+ * Every indexed sequence of the given length is reduced to a PAA with "segments" window-means, which are mapped
+ * onto SAX symbols with 2^MAX_BITS symbols. The tree groups the sequences by their symbols at a growing
+ * resolution: a full leaf is split by refining the symbols of one segment by one bit.
+ * The distance between the PAA of the query and the symbol ranges of a node is a lower bound of the Euclidean
+ * distance to every sequence in the node, so a search only computes the real distance for sequences, whose lower
+ * bound is smaller than the current k-th best distance. The real distance is abandoned early, too.
+ * The index can contain whole time series (add) and all subsequences of a time series (addSubsequences).
+ * If it normalizes, every sequence and the query are z-normalized, so the index finds similar shapes.
+ */
+public class SimilarityIndex {
+    /**
+     * Bits of the finest SAX alphabet
+     */
+    private static final int MAX_BITS = 8;
+    /**
+     * A leaf is split, if it contains more sequences
+     */
+    private static final int LEAF_CAPACITY = 64;
+    /**
+     * Windows with a smaller standard deviation are treated as flat
+     */
+    private static final double MIN_DEVIATION = 1e-8;
+    /**
+     * The breakpoints of the finest alphabet
+     */
+    private static final double[] BREAKPOINTS = SAX.breakpoints(1 << MAX_BITS);
+
+    /**
+     * Length of the indexed sequences
+     */
+    private final int length;
+    /**
+     * Amount of PAA segments
+     */
+    private final int segments;
+    /**
+     * Z-normalize the sequences?
+     */
+    private final boolean normalize;
+    /**
+     * The values of the added time series
+     */
+    private final List<double[]> sources;
+    /**
+     * The source of every sequence
+     */
+    private int[] entrySources;
+    /**
+     * The offset of every sequence in its source
+     */
+    private int[] entryOffsets;
+    /**
+     * The mean of every sequence (only if normalize)
+     */
+    private double[] entryMeans;
+    /**
+     * The standard deviation of every sequence (only if normalize)
+     */
+    private double[] entryDeviations;
+    /**
+     * The SAX word of every sequence, "segments" symbols per sequence
+     */
+    private byte[] words;
+    /**
+     * Amount of sequences
+     */
+    private int entries;
+    /**
+     * The children of the root, keyed by the first bit of every symbol
+     */
+    private final Map<Long, Node> roots;
+
+    /**
+     * Initialize an empty SimilarityIndex
+     * @param length length of the indexed sequences (and the queries)
+     * @param segments amount of PAA segments, between 1 and min(length, 64)
+     * @param normalize z-normalize the sequences and the queries
+     */
+    public SimilarityIndex(int length, int segments, boolean normalize) {
+        if(segments < 1 || segments > Math.min(length, 64)) {
+            throw new IllegalArgumentException("Illegal amount of segments: " + segments);
+        }
+        this.length = length;
+        this.segments = segments;
+        this.normalize = normalize;
+        this.sources = new ArrayList<>();
+        this.entrySources = new int[16];
+        this.entryOffsets = new int[16];
+        this.entryMeans = new double[normalize ? 16 : 0];
+        this.entryDeviations = new double[normalize ? 16 : 0];
+        this.words = new byte[16 * segments];
+        this.roots = new HashMap<>();
+    }
+
+    /**
+     * Gets the length of the indexed sequences
+     * @return the length
+     */
+    public int getLength() {
+        return length;
+    }
+
+    /**
+     * Counts the indexed sequences
+     * @return amount of sequences
+     */
+    public int size() {
+        return this.entries;
+    }
+
+    /**
+     * Adds a whole time series
+     * @param ts time series with exactly getLength() DataPoints
+     * @return the position of the source
+     */
+    public int add(RegularlyTimeSeries ts) {
+        if(ts.size() != this.length) {
+            throw new IllegalArgumentException("Expected " + this.length + " DataPoints, but got " + ts.size());
+        }
+        return this.addSource(ts.toArray(), 1);
+    }
+
+    /**
+     * Adds all subsequences of a time series with the length getLength()
+     * @param ts the time series
+     * @return the position of the source
+     */
+    public int addSubsequences(RegularlyTimeSeries ts) {
+        if(ts.size() < this.length) {
+            throw new IllegalArgumentException("The time series is shorter than " + this.length);
+        }
+        double[] values = ts.toArray();
+        return this.addSource(values, values.length - this.length + 1);
+    }
+
+    /**
+     * Finds the k nearest sequences
+     * @param query time series with exactly getLength() DataPoints
+     * @param k amount of neighbours
+     * @return the matches, ordered by distance
+     */
+    public Match[] search(RegularlyTimeSeries query, int k) {
+        if(query.size() != this.length) {
+            throw new IllegalArgumentException("Expected " + this.length + " DataPoints, but got " + query.size());
+        }
+        return this.search(query.toArray(), k);
+    }
+
+    /**
+     * Finds the k nearest sequences
+     * @param query exactly getLength() values
+     * @param k amount of neighbours
+     * @return the matches, ordered by distance
+     */
+    public Match[] search(double[] query, int k) {
+        if(query.length != this.length) {
+            throw new IllegalArgumentException("Expected " + this.length + " values, but got " + query.length);
+        }
+        double[] q = query.clone();
+        if(this.normalize) {
+            double mean = 0;
+            for(double x : q) {
+                mean += x;
+            }
+            mean /= q.length;
+            double variance = 0;
+            for(double x : q) {
+                variance += (x - mean) * (x - mean);
+            }
+            double deviation = Math.sqrt(variance / q.length);
+            if(deviation < MIN_DEVIATION) {
+                deviation = 1;
+            }
+            for(int i = 0; i < q.length; i++) {
+                q[i] = (q[i] - mean) / deviation;
+            }
+        }
+        double[] paa = PAA.segmentMeans(q, 0, q.length, this.segments, new double[this.segments]);
+        Result result = new Result(Math.min(k, this.entries));
+        if(result.k == 0) {
+            return new Match[0];
+        }
+        //Approximate search: the leaf with the symbols of the query gives a good first k-th best distance
+        long key = 0;
+        int[] symbols = new int[this.segments];
+        for(int j = 0; j < this.segments; j++) {
+            symbols[j] = SAX.symbol(paa[j], BREAKPOINTS);
+            key = (key << 1) | (symbols[j] >>> (MAX_BITS - 1));
+        }
+        Node approximate = this.roots.get(key);
+        if(approximate != null) {
+            while(!approximate.isLeaf()) {
+                approximate = approximate.child(symbols[approximate.split]);
+            }
+            this.scan(approximate, q, paa, result);
+        }
+        //Exact search: visit the nodes ordered by their lower bound
+        PriorityQueue<Candidate> queue = new PriorityQueue<>();
+        for(Node node : this.roots.values()) {
+            if(node != approximate) {
+                queue.add(new Candidate(node, this.lowerBound(node.bits, node.symbols, paa)));
+            }
+        }
+        while(!queue.isEmpty()) {
+            Candidate candidate = queue.poll();
+            if(candidate.bound >= result.worst()) {
+                break;
+            }
+            Node node = candidate.node;
+            if(node.isLeaf()) {
+                if(node != approximate) {
+                    this.scan(node, q, paa, result);
+                }
+            }
+            else {
+                queue.add(new Candidate(node.left, this.lowerBound(node.left.bits, node.left.symbols, paa)));
+                queue.add(new Candidate(node.right, this.lowerBound(node.right.bits, node.right.symbols, paa)));
+            }
+        }
+        return result.toMatches(this.entrySources, this.entryOffsets);
+    }
+
+    /**
+     * Adds the sequences of a source
+     */
+    private int addSource(double[] values, int count) {
+        int source = this.sources.size();
+        this.sources.add(values);
+        //The sums of every window are updated in O(1) per sequence (O(segments) for the window-means), but of the
+        //values minus a reference, which is the mean of the window at the last recalculation. Large sums of
+        //uncentred values would cancel catastrophically, if the series has got a large offset.
+        boolean integral = this.length % this.segments == 0;
+        int window = this.length / this.segments;
+        double[] paa = new double[this.segments];
+        double[] segmentSums = new double[this.segments];
+        double reference = 0;
+        double sum = 0;
+        double squares = 0;
+        for(int offset = 0; offset < count; offset++) {
+            if(offset % this.length == 0) {
+                //Recalculate the sums from scratch, so rounding errors can't pile up
+                reference = 0;
+                for(int i = offset; i < offset + this.length; i++) {
+                    reference += values[i];
+                }
+                reference /= this.length;
+                sum = 0;
+                squares = 0;
+                for(int i = offset; i < offset + this.length; i++) {
+                    double x = values[i] - reference;
+                    sum += x;
+                    squares += x * x;
+                }
+                if(integral) {
+                    for(int j = 0; j < this.segments; j++) {
+                        segmentSums[j] = 0;
+                        for(int i = offset + j * window; i < offset + (j + 1) * window; i++) {
+                            segmentSums[j] += values[i] - reference;
+                        }
+                    }
+                }
+            }
+            else {
+                double out = values[offset - 1] - reference;
+                double in = values[offset + this.length - 1] - reference;
+                sum += in - out;
+                squares += in * in - out * out;
+                if(integral) {
+                    for(int j = 0; j < this.segments; j++) {
+                        int from = offset - 1 + j * window;
+                        segmentSums[j] += values[from + window] - values[from];
+                    }
+                }
+            }
+            //mean, center and paa are relative to the reference
+            double mean = sum / this.length;
+            double center = -reference;
+            double deviation = 1;
+            if(this.normalize) {
+                center = mean;
+                double variance = squares / this.length - mean * mean;
+                deviation = Math.sqrt(Math.max(variance, 0));
+                if(deviation < MIN_DEVIATION) {
+                    deviation = 1;
+                }
+            }
+            if(integral) {
+                for(int j = 0; j < this.segments; j++) {
+                    paa[j] = segmentSums[j] / window;
+                }
+            }
+            else {
+                PAA.segmentMeans(values, offset, this.length, this.segments, paa);
+                for(int j = 0; j < this.segments; j++) {
+                    paa[j] -= reference;
+                }
+            }
+            int entry = this.newEntry(source, offset, reference + mean, deviation);
+            long key = 0;
+            for(int j = 0; j < this.segments; j++) {
+                int symbol = SAX.symbol((paa[j] - center) / deviation, BREAKPOINTS);
+                this.words[entry * this.segments + j] = (byte) symbol;
+                key = (key << 1) | (symbol >>> (MAX_BITS - 1));
+            }
+            Node root = this.roots.get(key);
+            if(root == null) {
+                byte[] bits = new byte[this.segments];
+                int[] symbols = new int[this.segments];
+                for(int j = 0; j < this.segments; j++) {
+                    bits[j] = 1;
+                    symbols[j] = (int) (key >>> (this.segments - 1 - j)) & 1;
+                }
+                root = new Node(bits, symbols);
+                this.roots.put(key, root);
+            }
+            this.insert(root, entry);
+        }
+        return source;
+    }
+
+    /**
+     * Reserves the space for a new sequence
+     */
+    private int newEntry(int source, int offset, double mean, double deviation) {
+        int entry = this.entries++;
+        if(entry == this.entrySources.length) {
+            int capacity = entry + (entry >> 1) + 1;
+            this.entrySources = Arrays.copyOf(this.entrySources, capacity);
+            this.entryOffsets = Arrays.copyOf(this.entryOffsets, capacity);
+            if(this.normalize) {
+                this.entryMeans = Arrays.copyOf(this.entryMeans, capacity);
+                this.entryDeviations = Arrays.copyOf(this.entryDeviations, capacity);
+            }
+            this.words = Arrays.copyOf(this.words, capacity * this.segments);
+        }
+        this.entrySources[entry] = source;
+        this.entryOffsets[entry] = offset;
+        if(this.normalize) {
+            this.entryMeans[entry] = mean;
+            this.entryDeviations[entry] = deviation;
+        }
+        return entry;
+    }
+
+    /**
+     * Inserts a sequence below a node
+     */
+    private void insert(Node node, int entry) {
+        while(!node.isLeaf()) {
+            node = node.child(this.symbol(entry, node.split));
+        }
+        node.add(entry);
+        if(node.count > LEAF_CAPACITY) {
+            this.split(node);
+        }
+    }
+
+    /**
+     * Splits a full leaf by refining the segment with the coarsest symbol
+     */
+    private void split(Node node) {
+        int split = -1;
+        for(int j = 0; j < this.segments; j++) {
+            if(node.bits[j] < MAX_BITS && (split < 0 || node.bits[j] < node.bits[split])) {
+                split = j;
+            }
+        }
+        if(split < 0) {
+            return;   //All symbols have got the finest resolution
+        }
+        byte[] bits = node.bits.clone();
+        bits[split]++;
+        int[] leftSymbols = node.symbols.clone();
+        int[] rightSymbols = node.symbols.clone();
+        leftSymbols[split] = node.symbols[split] << 1;
+        rightSymbols[split] = (node.symbols[split] << 1) | 1;
+        node.left = new Node(bits, leftSymbols);
+        node.right = new Node(bits, rightSymbols);
+        node.split = split;
+        int[] moved = node.entries;
+        int count = node.count;
+        node.entries = null;
+        node.count = 0;
+        for(int i = 0; i < count; i++) {
+            node.child(this.symbol(moved[i], split)).add(moved[i]);
+        }
+        if(node.left.count > LEAF_CAPACITY) {
+            this.split(node.left);
+        }
+        if(node.right.count > LEAF_CAPACITY) {
+            this.split(node.right);
+        }
+    }
+
+    /**
+     * Gets the finest symbol of a segment of a sequence
+     */
+    private int symbol(int entry, int segment) {
+        return this.words[entry * this.segments + segment] & 0xFF;
+    }
+
+    /**
+     * Computes the real distance to every sequence of a leaf, whose own lower bound is small enough
+     */
+    private void scan(Node leaf, double[] q, double[] paa, Result result) {
+        byte[] fine = new byte[this.segments];
+        int[] symbols = new int[this.segments];
+        Arrays.fill(fine, (byte) MAX_BITS);
+        for(int i = 0; i < leaf.count; i++) {
+            int entry = leaf.entries[i];
+            for(int j = 0; j < this.segments; j++) {
+                symbols[j] = this.symbol(entry, j);
+            }
+            if(this.lowerBound(fine, symbols, paa) >= result.worst()) {
+                continue;
+            }
+            double distance = this.distance(entry, q, result.worst());
+            if(distance < result.worst()) {
+                result.add(entry, distance);
+            }
+        }
+    }
+
+    /**
+     * Calculates the squared Euclidean distance between the (normalized) sequence and the query.
+     * The calculation is abandoned, as soon as it exceeds the limit.
+     */
+    private double distance(int entry, double[] q, double limit) {
+        double[] values = this.sources.get(this.entrySources[entry]);
+        int offset = this.entryOffsets[entry];
+        double mean = this.normalize ? this.entryMeans[entry] : 0;
+        double deviation = this.normalize ? this.entryDeviations[entry] : 1;
+        double sum = 0;
+        for(int i = 0; i < this.length && sum < limit; i++) {
+            double d = (values[offset + i] - mean) / deviation - q[i];
+            sum += d * d;
+        }
+        return sum;
+    }
+
+    /**
+     * Calculates the squared lower bound (MINDIST) between the PAA of the query and the symbol ranges
+     */
+    private double lowerBound(byte[] bits, int[] symbols, double[] paa) {
+        double sum = 0;
+        for(int j = 0; j < this.segments; j++) {
+            int shift = MAX_BITS - bits[j];
+            int lowSymbol = symbols[j] << shift;
+            int highSymbol = ((symbols[j] + 1) << shift) - 1;
+            double low = lowSymbol == 0 ? Double.NEGATIVE_INFINITY : BREAKPOINTS[lowSymbol - 1];
+            double high = highSymbol == BREAKPOINTS.length ? Double.POSITIVE_INFINITY : BREAKPOINTS[highSymbol];
+            double d = paa[j] < low ? low - paa[j] : paa[j] > high ? paa[j] - high : 0;
+            sum += d * d;
+        }
+        return sum * this.length / this.segments;
+    }
+
+    /**
+     * A node of the iSAX tree. Every segment has got a symbol with a resolution of bits[j] bits.
+     */
+    private static final class Node {
+        final byte[] bits;
+        final int[] symbols;
+        int[] entries = new int[8];
+        int count;
+        int split;
+        Node left;
+        Node right;
+
+        Node(byte[] bits, int[] symbols) {
+            this.bits = bits;
+            this.symbols = symbols;
+        }
+
+        boolean isLeaf() {
+            return this.left == null;
+        }
+
+        /**
+         * Gets the child, which contains the given finest symbol of the split segment
+         */
+        Node child(int symbol) {
+            int bit = (symbol >>> (MAX_BITS - this.left.bits[this.split])) & 1;
+            return bit == 0 ? this.left : this.right;
+        }
+
+        void add(int entry) {
+            if(this.count == this.entries.length) {
+                this.entries = Arrays.copyOf(this.entries, this.count * 2);
+            }
+            this.entries[this.count++] = entry;
+        }
+    }
+
+    /**
+     * A node in the queue of the exact search
+     */
+    private static final class Candidate implements Comparable<Candidate> {
+        final Node node;
+        final double bound;
+
+        Candidate(Node node, double bound) {
+            this.node = node;
+            this.bound = bound;
+        }
+
+        @Override
+        public int compareTo(Candidate other) {
+            return Double.compare(this.bound, other.bound);
+        }
+    }
+
+    /**
+     * The k best sequences so far, ordered by their squared distance
+     */
+    private static final class Result {
+        final int k;
+        final int[] entries;
+        final double[] distances;
+        int count;
+
+        Result(int k) {
+            this.k = k;
+            this.entries = new int[k];
+            this.distances = new double[k];
+        }
+
+        double worst() {
+            return this.count < this.k ? Double.POSITIVE_INFINITY : this.distances[this.k - 1];
+        }
+
+        void add(int entry, double distance) {
+            int i = Math.min(this.count, this.k - 1);
+            while(i > 0 && this.distances[i - 1] > distance) {
+                this.entries[i] = this.entries[i - 1];
+                this.distances[i] = this.distances[i - 1];
+                i--;
+            }
+            this.entries[i] = entry;
+            this.distances[i] = distance;
+            if(this.count < this.k) {
+                this.count++;
+            }
+        }
+
+        Match[] toMatches(int[] sources, int[] offsets) {
+            Match[] matches = new Match[this.count];
+            for(int i = 0; i < this.count; i++) {
+                matches[i] = new Match(sources[this.entries[i]], offsets[this.entries[i]],
+                        Math.sqrt(this.distances[i]));
+            }
+            return matches;
+        }
+    }
+}
@@ -0,0 +1,156 @@
+/*
+ * This library is free software; you can redistribute it and/or modify it under the terms of
+ * the GNU Lesser General Public License as published by the Free Software Foundation.
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ */
+
+package timeseries.regularly_timeseries.transformation;
+
+import timeseries.RegularlyTimeSeries;
+import timeseries.storage.ArrayStorage;
+
+/**
+ * Differencing removes trends and seasonality from time series..
+ * The difference with lag 1 removes a linear trend, differencing "order" times removes a polynomial trend of this
+ * order. The difference with the lag of a season removes the seasonality (seasonal differencing).
+ * The gradient is the difference divided by the spacing. It can use forward or central differences.
+ * All methods run in a tight loop over primitive arrays. The methods working on arrays write into a given array,
+ * which can be the input array itself (in place).
+ */
+public final class Differencing {
+
+    private Differencing() {
+    }
+
+    /**
+     * Calculates the difference x[i] - x[i-lag] of the given time series "order" times.
+     * @param ts given time series
+     * @param lag distance of the subtracted DataPoint, 1 for the normal difference or the length of a season
+     * @param order how often the difference is calculated
+     * @return a time series with lag*order DataPoints less. Every difference has got the t-value of the later
+     * DataPoint.
+     */
+    public static RegularlyTimeSeries difference(RegularlyTimeSeries ts, int lag, int order) {
+        double[] values = ts.toArray();
+        int length = values.length - lag * order;
+        if(length < 0) {
+            throw new IllegalArgumentException("The time series is too short for lag " + lag + " and order " + order);
+        }
+        difference(values, 0, values.length, lag, order, values);
+        double t0 = length > 0 ? ts.getT(lag * order) : 0;
+        return new RegularlyTimeSeries(ts.getSpacing(), t0, ArrayStorage.wrap(values, length));
+    }
+
+    /**
+     * Calculates the difference x[i] - x[i-1] of the given time series "order" times.
+     * @param ts given time series
+     * @param order how often the difference is calculated
+     * @return a time series with "order" DataPoints less
+     */
+    public static RegularlyTimeSeries difference(RegularlyTimeSeries ts, int order) {
+        return difference(ts, 1, order);
+    }
+
+    /**
+     * Calculates the seasonal difference x[i] - x[i-lag] of the given time series
+     * @param ts given time series
+     * @param lag the length of a season
+     * @return a time series with "lag" DataPoints less
+     */
+    public static RegularlyTimeSeries seasonalDifference(RegularlyTimeSeries ts, int lag) {
+        return difference(ts, lag, 1);
+    }
+
+    /**
+     * Calculates the gradient of the given time series.
+     * @param ts given time series
+     * @param central use central differences (x[i+1] - x[i-1]) / (2*spacing) for the inner DataPoints.
+     *                Otherwise the forward difference is used like in getGradient.
+     * @return a time series with the same t-values
+     */
+    public static RegularlyTimeSeries gradient(RegularlyTimeSeries ts, boolean central) {
+        double[] values = ts.toArray();
+        gradient(values, 0, values.length, ts.getSpacing(), central, values);
+        double t0 = values.length > 0 ? ts.getT(0) : 0;
+        return new RegularlyTimeSeries(ts.getSpacing(), t0, ArrayStorage.wrap(values, values.length));
+    }
+
+    /**
+     * Calculates the difference x[i] - x[i-lag] of values[from, from+length) "order" times and writes the
+     * length - lag*order differences into dst[0, length - lag*order).
+     * dst can be values itself, then the differences are calculated in place.
+     * @param values the values
+     * @param from first index in values
+     * @param length amount of values
+     * @param lag distance of the subtracted value
+     * @param order how often the difference is calculated
+     * @param dst array for the differences
+     * @return dst
+     */
+    public static double[] difference(double[] values, int from, int length, int lag, int order, double[] dst) {
+        if(lag < 1 || order < 0) {
+            throw new IllegalArgumentException("Illegal lag " + lag + " or order " + order);
+        }
+        if(order == 0) {
+            System.arraycopy(values, from, dst, 0, length);
+            return dst;
+        }
+        //dst[i] is written after values[from+i] was read for the last time, so it works in place
+        int n = length - lag;
+        for(int i = 0; i < n; i++) {
+            dst[i] = values[from + i + lag] - values[from + i];
+        }
+        for(int k = 1; k < order; k++) {
+            n -= lag;
+            for(int i = 0; i < n; i++) {
+                dst[i] = dst[i + lag] - dst[i];
+            }
+        }
+        return dst;
+    }
+
+    /**
+     * Calculates the gradient of values[from, from+length) and writes it into dst[0, length).
+     * The last value gets the backward difference, a single value gets the gradient 0.
+     * dst can be values itself, then the gradient is calculated in place.
+     * @param values the values
+     * @param from first index in values
+     * @param length amount of values
+     * @param spacing the spacing between two values
+     * @param central use central differences for the inner values, otherwise forward differences
+     * @param dst array for the gradient
+     * @return dst
+     */
+    public static double[] gradient(double[] values, int from, int length, double spacing, boolean central,
+                                    double[] dst) {
+        if(length == 1) {
+            dst[0] = 0;
+            return dst;
+        }
+        if(length == 0) {
+            return dst;
+        }
+        double last = (values[from + length - 1] - values[from + length - 2]) / spacing;
+        if(central) {
+            //previous keeps the value, which may already be overwritten in place
+            double previous = values[from];
+            dst[0] = (values[from + 1] - previous) / spacing;
+            double twice = 2 * spacing;
+            for(int i = 1; i < length - 1; i++) {
+                double current = values[from + i];
+                dst[i] = (values[from + i + 1] - previous) / twice;
+                previous = current;
+            }
+        }
+        else {
+            for(int i = 0; i < length - 1; i++) {
+                dst[i] = (values[from + i + 1] - values[from + i]) / spacing;
+            }
+        }
+        dst[length - 1] = last;
+        return dst;
+    }
+}
@@ -10,13 +10,15 @@
 package timeseries.regularly_timeseries.transformation;
 
 import timeseries.RegularlyTimeSeries;
+import timeseries.storage.ArrayStorage;
 
 /**
  * Created by apolol92 on 20.08.15.
  * Piecewise Aggregate Approximation(PAA) use a non-overlapping window of length W.
  * It can be used for dimensionality reduction by replacing all DataPoints in the window with the window-mean.
  * It also can be used to approximate a time series.
- *
+ * All methods calculate the window-means in a single pass. The methods working on arrays write into a given
+ * array, so they don't allocate anything.
  */
 public class PAA {
     /**
@@ -29,7 +31,7 @@ public class PAA {
      * @param windowSize, the size of the window
      */
     public PAA(long windowSize) {
-        this.windowSize = windowSize;
+        this.setWindowSize(windowSize);
     }
 
     /**
@@ -45,23 +47,31 @@ public class PAA {
      * @param windowSize new window size
      */
     public void setWindowSize(long windowSize) {
+        if(windowSize < 1) {
+            throw new IllegalArgumentException("The window size has to be positive: " + windowSize);
+        }
         this.windowSize = windowSize;
     }
 
     /**
-     * Reduce the dimension of the given time series
+     * Reduce the dimension of the given time series.
+     * Every complete window becomes one DataPoint. An incomplete window at the end is ignored.
      * @param ts given time series
      * @return the reduced dimension time series
      */
     public RegularlyTimeSeries dimensionReduction(RegularlyTimeSeries ts) {
-        long tsSize = ts.size();
-        RegularlyTimeSeries reduced = new RegularlyTimeSeries(ts.getT(this.windowSize)-ts.getT(0));
-        boolean firstElement = true;
-        for(long i = 0; i < tsSize-this.windowSize; i=i+this.windowSize) {
-            RegularlyTimeSeries sub = ts.subSeries(i, i + this.windowSize);
-            double mean = sub.mean();
-            if(firstElement) {
-                reduced.addFirstDataPoint(ts.getT(i),mean);
+        long segments = ts.size() / this.windowSize;
+        RegularlyTimeSeries reduced = new RegularlyTimeSeries(this.windowSize * ts.getSpacing(), 0,
+                new ArrayStorage((int) Math.min(segments, Integer.MAX_VALUE - 8)));
+        long i = 0;
+        for(long s = 0; s < segments; s++) {
+            double sum = 0;
+            for(long end = i + this.windowSize; i < end; i++) {
+                sum += ts.getX(i);
+            }
+            double mean = sum / this.windowSize;
+            if(s == 0) {
+                reduced.addFirstDataPoint(ts.getT(0), mean);
             }
             else {
                 reduced.addX(mean);
@@ -71,39 +81,129 @@ public class PAA {
     }
 
     /**
-     * Approximate the given time series
+     * Reduce the dimension of the given time series to exactly "segments" DataPoints.
+     * The amount of DataPoints doesn't have to be a multiple of segments. If a DataPoint lies on the border of
+     * two segments, it contributes to both of them proportionally (fractional PAA).
+     * @param ts given time series
+     * @param segments amount of segments
+     * @return the reduced dimension time series
+     */
+    public static RegularlyTimeSeries dimensionReduction(RegularlyTimeSeries ts, int segments) {
+        double[] means = segmentMeans(ts.toArray(), 0, (int) ts.size(), segments, new double[segments]);
+        RegularlyTimeSeries reduced = new RegularlyTimeSeries(ts.size() * ts.getSpacing() / segments, 0,
+                new ArrayStorage(segments));
+        for(int s = 0; s < segments; s++) {
+            if(s == 0) {
+                reduced.addFirstDataPoint(ts.getT(0), means[s]);
+            }
+            else {
+                reduced.addX(means[s]);
+            }
+        }
+        return reduced;
+    }
+
+    /**
+     * Calculates the means of "segments" equally sized segments of values[from, from+length) in one pass and
+     * writes them into dst[0, segments).
+     * If length isn't a multiple of segments, values on the border of two segments contribute to both of them
+     * proportionally (fractional PAA).
+     * @param values the values
+     * @param from first index in values
+     * @param length amount of values
+     * @param segments amount of segments, between 1 and length
+     * @param dst array for the means, at least "segments" long
+     * @return dst
+     */
+    public static double[] segmentMeans(double[] values, int from, int length, int segments, double[] dst) {
+        if(segments < 1 || segments > length) {
+            throw new IllegalArgumentException("Illegal amount of segments: " + segments + ", length: " + length);
+        }
+        for(int s = 0; s < segments; s++) {
+            dst[s] = 0;
+        }
+        if(length % segments == 0) {
+            int w = length / segments;
+            int i = from;
+            for(int s = 0; s < segments; s++) {
+                double sum = 0;
+                for(int end = i + w; i < end; i++) {
+                    sum += values[i];
+                }
+                dst[s] = sum / w;
+            }
+            return dst;
+        }
+        //Every value covers "segments" units and every segment covers "length" units
+        for(int i = 0; i < length; i++) {
+            double x = values[from + i];
+            long start = (long) i * segments;
+            long end = start + segments;
+            while(start < end) {
+                int s = (int) (start / length);
+                long covered = Math.min(end, (long) (s + 1) * length) - start;
+                dst[s] += x * covered;
+                start += covered;
+            }
+        }
+        for(int s = 0; s < segments; s++) {
+            dst[s] /= length;
+        }
+        return dst;
+    }
+
+    /**
+     * Approximate the given time series.
+     * Every DataPoint gets the mean of its window. An incomplete window at the end gets the mean of its own
+     * DataPoints.
      * @param ts given time series
      * @return approximation of the given time series
      */
     public RegularlyTimeSeries approximation(RegularlyTimeSeries ts) {
         long tsSize = ts.size();
-        RegularlyTimeSeries approx = new RegularlyTimeSeries(ts.getSpacing());
-        boolean firstElement = true;
-        for(long i = 0; i < tsSize-this.windowSize+1; i++) {
-            RegularlyTimeSeries sub = ts.subSeries(i, i + this.windowSize);
-            double mean = sub.mean();
-            if(firstElement) {
-                approx.addFirstDataPoint(ts.getT(i), mean);
-                firstElement = false;
-            }
-            else {
-                approx.addX(mean);
+        RegularlyTimeSeries approx = new RegularlyTimeSeries(ts.getSpacing(), 0,
+                new ArrayStorage((int) Math.min(tsSize, Integer.MAX_VALUE - 8)));
+        for(long from = 0; from < tsSize; from += this.windowSize) {
+            long to = Math.min(from + this.windowSize, tsSize);
+            double sum = 0;
+            for(long i = from; i < to; i++) {
+                sum += ts.getX(i);
             }
-            if(i==tsSize-this.windowSize) {
-                //Fill the rest
-                i++;
-                while(i<tsSize) {
-                    if(firstElement) {
-                        approx.addFirstDataPoint(ts.getT(i), mean);
-                        firstElement = false;
-                    }
-                    else {
-                        approx.addX(mean);
-                    }
-                    i++;
+            double mean = sum / (to - from);
+            for(long i = from; i < to; i++) {
+                if(i == 0) {
+                    approx.addFirstDataPoint(ts.getT(0), mean);
+                }
+                else {
+                    approx.addX(mean);
                 }
             }
         }
         return  approx;
     }
+
+    /**
+     * Approximate values[from, from+length) and write the approximation into dst[0, length).
+     * Every value gets the mean of its window. An incomplete window at the end gets the mean of its own values.
+     * @param values the values
+     * @param from first index in values
+     * @param length amount of values
+     * @param dst array for the approximation, at least "length" long
+     * @return dst
+     */
+    public double[] approximation(double[] values, int from, int length, double[] dst) {
+        int w = (int) Math.min(this.windowSize, Integer.MAX_VALUE);
+        for(int start = 0; start < length; start += w) {
+            int end = (int) Math.min((long) start + w, length);
+            double sum = 0;
+            for(int i = start; i < end; i++) {
+                sum += values[from + i];
+            }
+            double mean = sum / (end - start);
+            for(int i = start; i < end; i++) {
+                dst[i] = mean;
+            }
+        }
+        return dst;
+    }
 }
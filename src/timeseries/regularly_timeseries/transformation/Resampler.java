@@ -0,0 +1,245 @@
+/*
+ * This library is free software; you can redistribute it and/or modify it under the terms of
+ * the GNU Lesser General Public License as published by the Free Software Foundation.
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ */
+
+package timeseries.regularly_timeseries.transformation;
+
+import timeseries.RegularlyTimeSeries;
+import timeseries.storage.ArrayStorage;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.function.DoubleConsumer;
+
+/**
+ * Converts a regularly time series to another spacing.
+ * Downsampling puts the DataPoints into buckets of the new spacing and calculates several aggregates per bucket
+ * at once, e.g. FIRST, MAX, MIN and LAST for OHLC charts. NaN values are ignored, an empty bucket gets NaN
+ * (and the SUM and COUNT 0).
+ * Upsampling interpolates the new ticks linearly or repeats the last value (step).
+ * Both read the values in a single streaming pass (so they're fast for compressed or mapped storages, too) and
+ * write directly into the storages of the results, there isn't any object per DataPoint or bucket.
+ */
+public class Resampler {
+    /**
+     * Absorbs rounding errors, when DataPoints are assigned to buckets or ticks
+     */
+    private static final double TOLERANCE = 1e-9;
+
+    /**
+     * The aggregates of a bucket
+     */
+    public enum Aggregate {
+        MIN, MAX, MEAN, FIRST, LAST, SUM, COUNT
+    }
+
+    /**
+     * The spacing of the resampled time series
+     */
+    private final double spacing;
+
+    /**
+     * Initialize a Resampler
+     * @param spacing the spacing of the resampled time series
+     */
+    public Resampler(double spacing) {
+        if(!(spacing > 0)) {
+            throw new IllegalArgumentException("Illegal spacing: " + spacing);
+        }
+        this.spacing = spacing;
+    }
+
+    /**
+     * Gets the spacing of the resampled time series
+     * @return the spacing
+     */
+    public double getSpacing() {
+        return spacing;
+    }
+
+    /**
+     * Downsamples the time series to one aggregate
+     * @param ts given time series, its spacing can't be larger than the new spacing
+     * @param aggregate the aggregate of every bucket
+     * @return the downsampled time series
+     */
+    public RegularlyTimeSeries downsample(RegularlyTimeSeries ts, Aggregate aggregate) {
+        return this.downsample(ts, new Aggregate[]{aggregate}).get(aggregate);
+    }
+
+    /**
+     * Downsamples the time series to several aggregates in a single pass.
+     * The bucket k contains the DataPoints with t0 + k*spacing <= t < t0 + (k+1)*spacing.
+     * @param ts given time series, its spacing can't be larger than the new spacing
+     * @param aggregates the aggregates of every bucket
+     * @return a downsampled time series for every aggregate
+     */
+    public Map<Aggregate, RegularlyTimeSeries> downsample(RegularlyTimeSeries ts, Aggregate... aggregates) {
+        if(ts.getSpacing() > this.spacing) {
+            throw new IllegalArgumentException("Use upsample for a smaller spacing than " + ts.getSpacing());
+        }
+        long size = ts.size();
+        double ratio = ts.getSpacing() / this.spacing;
+        long buckets = size == 0 ? 0 : (long) Math.floor((size-1) * ratio + TOLERANCE) + 1;
+        int capacity = (int) Math.min(buckets, Integer.MAX_VALUE - 8);
+        ArrayStorage[] outputs = new ArrayStorage[aggregates.length];
+        for(int a = 0; a < aggregates.length; a++) {
+            outputs[a] = new ArrayStorage(capacity);
+        }
+        Buckets consumer = new Buckets(ratio, aggregates, outputs);
+        ts.getStorage().forEach(0, size, consumer);
+        if(size > 0) {
+            consumer.emit();
+        }
+        double t0 = size > 0 ? ts.getT(0) : 0;
+        Map<Aggregate, RegularlyTimeSeries> result = new EnumMap<>(Aggregate.class);
+        for(int a = 0; a < aggregates.length; a++) {
+            result.put(aggregates[a], new RegularlyTimeSeries(this.spacing, t0, outputs[a]));
+        }
+        return result;
+    }
+
+    /**
+     * Upsamples the time series from the first to the last t-value.
+     * @param ts given time series, its spacing can't be smaller than the new spacing
+     * @param linear true: interpolate linearly between the DataPoints around a tick,
+     *               false: use the last DataPoint at or before the tick (step)
+     * @return the upsampled time series
+     */
+    public RegularlyTimeSeries upsample(RegularlyTimeSeries ts, boolean linear) {
+        if(ts.getSpacing() < this.spacing) {
+            throw new IllegalArgumentException("Use downsample for a larger spacing than " + ts.getSpacing());
+        }
+        long size = ts.size();
+        double ratio = this.spacing / ts.getSpacing();
+        long ticks = size == 0 ? 0 : (long) Math.floor((size-1) / ratio + TOLERANCE) + 1;
+        if(ticks > Integer.MAX_VALUE - 8) {
+            throw new IllegalArgumentException("Too many ticks for the spacing: " + this.spacing);
+        }
+        ArrayStorage values = new ArrayStorage((int) ticks);
+        Ticks consumer = new Ticks(ratio, ticks, linear, values);
+        ts.getStorage().forEach(0, size, consumer);
+        return new RegularlyTimeSeries(this.spacing, size > 0 ? ts.getT(0) : 0, values);
+    }
+
+    /**
+     * Collects the aggregates of the current bucket and appends them to the outputs, when the bucket is complete
+     */
+    private static final class Buckets implements DoubleConsumer {
+        private final double ratio;
+        private final Aggregate[] aggregates;
+        private final ArrayStorage[] outputs;
+        private long index;
+        private long bucket;
+        private long count;
+        private double min;
+        private double max;
+        private double sum;
+        private double first;
+        private double last;
+
+        Buckets(double ratio, Aggregate[] aggregates, ArrayStorage[] outputs) {
+            this.ratio = ratio;
+            this.aggregates = aggregates;
+            this.outputs = outputs;
+        }
+
+        @Override
+        public void accept(double x) {
+            long b = (long) Math.floor(this.index * this.ratio + TOLERANCE);
+            this.index++;
+            while(b > this.bucket) {
+                this.emit();
+                this.bucket++;
+            }
+            if(Double.isNaN(x)) {
+                return;
+            }
+            if(this.count == 0) {
+                this.first = x;
+                this.min = x;
+                this.max = x;
+            }
+            else if(x < this.min) {
+                this.min = x;
+            }
+            else if(x > this.max) {
+                this.max = x;
+            }
+            this.last = x;
+            this.sum += x;
+            this.count++;
+        }
+
+        /**
+         * Appends the aggregates of the current bucket and starts a new one
+         */
+        void emit() {
+            boolean empty = this.count == 0;
+            for(int a = 0; a < this.aggregates.length; a++) {
+                double value;
+                switch(this.aggregates[a]) {
+                    case MIN: value = empty ? Double.NaN : this.min; break;
+                    case MAX: value = empty ? Double.NaN : this.max; break;
+                    case MEAN: value = empty ? Double.NaN : this.sum / this.count; break;
+                    case FIRST: value = empty ? Double.NaN : this.first; break;
+                    case LAST: value = empty ? Double.NaN : this.last; break;
+                    case SUM: value = this.sum; break;
+                    default: value = this.count; break;
+                }
+                this.outputs[a].add(value);
+            }
+            this.count = 0;
+            this.sum = 0;
+        }
+    }
+
+    /**
+     * Appends all ticks up to the current DataPoint
+     */
+    private static final class Ticks implements DoubleConsumer {
+        private final double ratio;
+        private final long ticks;
+        private final boolean linear;
+        private final ArrayStorage values;
+        private long index;
+        private long tick;
+        private double previous;
+
+        Ticks(double ratio, long ticks, boolean linear, ArrayStorage values) {
+            this.ratio = ratio;
+            this.ticks = ticks;
+            this.linear = linear;
+            this.values = values;
+        }
+
+        @Override
+        public void accept(double x) {
+            //The ticks between the previous and this DataPoint (position in old spacings)
+            while(this.tick < this.ticks) {
+                double position = this.tick * this.ratio;
+                if(position > this.index + TOLERANCE) {
+                    break;
+                }
+                double offset = position - (this.index - 1);
+                if(this.index == 0 || position >= this.index - TOLERANCE) {
+                    this.values.add(x);
+                }
+                else if(this.linear) {
+                    this.values.add(this.previous + (x - this.previous) * offset);
+                }
+                else {
+                    this.values.add(this.previous);
+                }
+                this.tick++;
+            }
+            this.previous = x;
+            this.index++;
+        }
+    }
+}
@@ -0,0 +1,172 @@
+/*
+ * This library is free software; you can redistribute it and/or modify it under the terms of
+ * the GNU Lesser General Public License as published by the Free Software Foundation.
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ */
+
+package timeseries.storage;
+
+import java.util.Arrays;
+
+/**
+ * Keeps the values in a growable double array on the heap.
+ * Appending a value costs amortized O(1), because the array grows by the factor 1.5 if it is full.
+ * Every value only costs 8 bytes, there isn't any object per value.
+ */
+public class ArrayStorage extends Storage {
+    /**
+     * The initial capacity, if nothing else is given.
+     */
+    private static final int DEFAULT_CAPACITY = 16;
+    /**
+     * The largest array we try to allocate. Some VMs reserve some header words in an array.
+     */
+    private static final int MAX_CAPACITY = Integer.MAX_VALUE - 8;
+    /**
+     * Shared by all storages with the capacity 0, it is never written.
+     */
+    private static final double[] EMPTY = new double[0];
+    /**
+     * The values. Only the first "size" values are in use.
+     */
+    private double[] values;
+    /**
+     * The amount of values in use.
+     */
+    private int size;
+
+    /**
+     * Initialize an empty ArrayStorage with the default capacity.
+     */
+    public ArrayStorage() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    /**
+     * Initialize an empty ArrayStorage.
+     * @param capacity the initial capacity. Use it, if you know how many values will be added.
+     */
+    public ArrayStorage(int capacity) {
+        if(capacity < 0) {
+            throw new IllegalArgumentException("Illegal capacity: " + capacity);
+        }
+        this.values = capacity == 0 ? EMPTY : new double[capacity];
+        this.size = 0;
+    }
+
+    /**
+     * Initialize an ArrayStorage with a copy of the given values.
+     * @param values the initial values
+     */
+    public ArrayStorage(double[] values) {
+        this.values = values.clone();
+        this.size = values.length;
+    }
+
+    /**
+     * Initialize an ArrayStorage with a copy of the first "size" values.
+     * @param values the initial values
+     * @param size amount of values to copy
+     */
+    public ArrayStorage(double[] values, int size) {
+        if(size < 0 || size > values.length) {
+            throw new IllegalArgumentException("Illegal size: " + size);
+        }
+        this.values = Arrays.copyOf(values, size);
+        this.size = size;
+    }
+
+    /**
+     * Creates an ArrayStorage, which adopts the given array without copying it.
+     * The caller must not use the array afterwards, the storage owns it now.
+     * @param values the values, the array becomes the storage
+     * @param size amount of values in use (the first "size" values)
+     * @return the storage
+     */
+    public static ArrayStorage wrap(double[] values, int size) {
+        if(size < 0 || size > values.length) {
+            throw new IllegalArgumentException("Illegal size: " + size);
+        }
+        ArrayStorage storage = new ArrayStorage(0);
+        storage.values = values;
+        storage.size = size;
+        return storage;
+    }
+
+    @Override
+    public long size() {
+        return this.size;
+    }
+
+    @Override
+    public double get(long index) {
+        if(index < 0 || index >= this.size) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + this.size);
+        }
+        return this.values[(int) index];
+    }
+
+    @Override
+    public void set(long index, double x) {
+        this.checkIndex(index);
+        this.values[(int) index] = x;
+        this.modifications++;
+    }
+
+    @Override
+    public void add(double x) {
+        if(this.size == this.values.length) {
+            this.grow();
+        }
+        this.values[this.size++] = x;
+    }
+
+    /**
+     * Inserts a value by moving the following values with System.arraycopy, so it costs O(size - index).
+     * @param index position of the new value, between 0 and size()
+     * @param x the new value
+     */
+    @Override
+    public void insert(long index, double x) {
+        if(index < 0 || index > this.size) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + this.size);
+        }
+        if(this.size == this.values.length) {
+            this.grow();
+        }
+        int i = (int) index;
+        System.arraycopy(this.values, i, this.values, i + 1, this.size - i);
+        this.values[i] = x;
+        this.size++;
+        this.modifications++;
+    }
+
+    @Override
+    public void copyTo(long from, double[] dst, int offset, int length) {
+        if(length > 0) {
+            this.checkIndex(from);
+            this.checkIndex(from + length - 1);
+            System.arraycopy(this.values, (int) from, dst, offset, length);
+        }
+    }
+
+    @Override
+    public ArrayStorage copy() {
+        return wrap(Arrays.copyOf(this.values, this.size), this.size);
+    }
+
+    /**
+     * Grows the array by the factor 1.5.
+     */
+    private void grow() {
+        int oldCapacity = this.values.length;
+        if(oldCapacity == MAX_CAPACITY) {
+            throw new OutOfMemoryError("ArrayStorage can't hold more than " + MAX_CAPACITY + " values");
+        }
+        long newCapacity = oldCapacity + (oldCapacity >> 1) + 1;
+        this.values = Arrays.copyOf(this.values, (int) Math.min(newCapacity, MAX_CAPACITY));
+    }
+}
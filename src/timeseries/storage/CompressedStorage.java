@@ -0,0 +1,273 @@
+/*
+ * This library is free software; you can redistribute it and/or modify it under the terms of
+ * the GNU Lesser General Public License as published by the Free Software Foundation.
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ */
+
+package timeseries.storage;
+
+import java.util.Arrays;
+import java.util.function.DoubleConsumer;
+
+/**
+ * Keeps the values compressed in an immutable storage, using the XOR floating-point compression of Facebook's
+ * Gorilla paper (Pelkonen et al., 2015).
+ * Neighbouring values of a time series are usually similar, so the XOR of their bits has got many leading and
+ * trailing zeros and only the meaningful bits in the middle are stored:
+ * - XOR is 0: a single 0 bit
+ * - the meaningful bits fit into the window of the previous value: 10 and the bits inside the window
+ * - otherwise: 11, 5 bits leading zeros, 6 bits length of the meaningful bits and the meaningful bits
+ * The values are split into blocks. Every block starts with an uncompressed value, so a random access only
+ * decodes one block. Sequential access (forEach, copyTo) decodes the blocks in a streaming fashion.
+ */
+public class CompressedStorage extends Storage {
+    /**
+     * Amount of values per block
+     */
+    private static final int BLOCK_SIZE = 1024;
+    /**
+     * The encoded bits, most significant bit first
+     */
+    private final long[] words;
+    /**
+     * The bit position of every block
+     */
+    private final long[] blocks;
+    /**
+     * The amount of values
+     */
+    private final long size;
+
+    /**
+     * Compresses the values of a storage
+     * @param source the values
+     */
+    public CompressedStorage(Storage source) {
+        Encoder encoder = new Encoder();
+        long size = source.size();
+        long[] blocks = new long[(int) ((size + BLOCK_SIZE - 1) / BLOCK_SIZE)];
+        long[] index = {0};
+        source.forEach(0, size, x -> {
+            if(index[0] % BLOCK_SIZE == 0) {
+                blocks[(int) (index[0] / BLOCK_SIZE)] = encoder.position;
+                encoder.startBlock(x);
+            }
+            else {
+                encoder.encode(x);
+            }
+            index[0]++;
+        });
+        this.words = Arrays.copyOf(encoder.words, (int) ((encoder.position + 63) >>> 6) + 1);
+        this.blocks = blocks;
+        this.size = size;
+    }
+
+    /**
+     * Gets the size of the compressed values in bytes
+     * @return size in bytes
+     */
+    public long getCompressedBytes() {
+        return (long) this.words.length * Long.BYTES + (long) this.blocks.length * Long.BYTES;
+    }
+
+    @Override
+    public long size() {
+        return this.size;
+    }
+
+    @Override
+    public double get(long index) {
+        if(index < 0 || index >= this.size) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + this.size);
+        }
+        int block = (int) (index / BLOCK_SIZE);
+        Decoder decoder = new Decoder(this.words, this.blocks[block]);
+        double x = decoder.first();
+        for(long i = (long) block * BLOCK_SIZE; i < index; i++) {
+            x = decoder.next();
+        }
+        return x;
+    }
+
+    /**
+     * A CompressedStorage is immutable.
+     * @throws UnsupportedOperationException always
+     */
+    @Override
+    public void set(long index, double x) {
+        throw new UnsupportedOperationException("A CompressedStorage is immutable");
+    }
+
+    /**
+     * A CompressedStorage is immutable.
+     * @throws UnsupportedOperationException always
+     */
+    @Override
+    public void add(double x) {
+        throw new UnsupportedOperationException("A CompressedStorage is immutable");
+    }
+
+    @Override
+    public void forEach(long from, long length, DoubleConsumer consumer) {
+        if(length <= 0) {
+            return;
+        }
+        this.checkIndex(from);
+        this.checkIndex(from + length - 1);
+        long end = from + length;
+        long i = from - from % BLOCK_SIZE;
+        Decoder decoder = null;
+        for(; i < end; i++) {
+            double x;
+            if(i % BLOCK_SIZE == 0) {
+                decoder = new Decoder(this.words, this.blocks[(int) (i / BLOCK_SIZE)]);
+                x = decoder.first();
+            }
+            else {
+                x = decoder.next();
+            }
+            if(i >= from) {
+                consumer.accept(x);
+            }
+        }
+    }
+
+    @Override
+    public void copyTo(long from, double[] dst, int offset, int length) {
+        int[] position = {offset};
+        this.forEach(from, length, x -> dst[position[0]++] = x);
+    }
+
+    /**
+     * Decompresses the values into an ArrayStorage
+     * @return an ArrayStorage with the values
+     */
+    @Override
+    public ArrayStorage copy() {
+        if(this.size > Integer.MAX_VALUE - 8) {
+            throw new IllegalStateException("The storage is too large for an ArrayStorage");
+        }
+        double[] values = new double[(int) this.size];
+        this.copyTo(0, values, 0, values.length);
+        return ArrayStorage.wrap(values, values.length);
+    }
+
+    /**
+     * Masks the lowest n bits
+     */
+    private static long mask(int n) {
+        return n == 64 ? -1L : (1L << n) - 1;
+    }
+
+    /**
+     * Writes the XOR encoded values into a growable bit array.
+     */
+    private static final class Encoder {
+        long[] words = new long[64];
+        long position;
+        long previous;
+        int leading;
+        int trailing;
+
+        void startBlock(double x) {
+            this.previous = Double.doubleToRawLongBits(x);
+            this.leading = -1;
+            this.trailing = 0;
+            this.write(this.previous, 64);
+        }
+
+        void encode(double x) {
+            long bits = Double.doubleToRawLongBits(x);
+            long xor = bits ^ this.previous;
+            this.previous = bits;
+            if(xor == 0) {
+                this.write(0, 1);
+                return;
+            }
+            int lz = Math.min(Long.numberOfLeadingZeros(xor), 31);
+            int tz = Long.numberOfTrailingZeros(xor);
+            if(this.leading >= 0 && lz >= this.leading && tz >= this.trailing) {
+                this.write(2, 2);
+                this.write(xor >>> this.trailing, 64 - this.leading - this.trailing);
+            }
+            else {
+                int meaningful = 64 - lz - tz;
+                this.write(3, 2);
+                this.write(lz, 5);
+                this.write(meaningful - 1, 6);
+                this.write(xor >>> tz, meaningful);
+                this.leading = lz;
+                this.trailing = tz;
+            }
+        }
+
+        void write(long value, int n) {
+            value &= mask(n);
+            int word = (int) (this.position >>> 6);
+            if(word + 1 >= this.words.length) {
+                this.words = Arrays.copyOf(this.words, this.words.length * 2);
+            }
+            int free = 64 - (int) (this.position & 63);
+            if(n <= free) {
+                this.words[word] |= value << (free - n);
+            }
+            else {
+                int rest = n - free;
+                this.words[word] |= value >>> rest;
+                this.words[word + 1] |= value << (64 - rest);
+            }
+            this.position += n;
+        }
+    }
+
+    /**
+     * Reads the XOR encoded values of one block.
+     */
+    private static final class Decoder {
+        final long[] words;
+        long position;
+        long previous;
+        int leading;
+        int trailing;
+
+        Decoder(long[] words, long position) {
+            this.words = words;
+            this.position = position;
+        }
+
+        double first() {
+            this.previous = this.read(64);
+            return Double.longBitsToDouble(this.previous);
+        }
+
+        double next() {
+            if(this.read(1) != 0) {
+                if(this.read(1) != 0) {
+                    this.leading = (int) this.read(5);
+                    int meaningful = (int) this.read(6) + 1;
+                    this.trailing = 64 - this.leading - meaningful;
+                }
+                this.previous ^= this.read(64 - this.leading - this.trailing) << this.trailing;
+            }
+            return Double.longBitsToDouble(this.previous);
+        }
+
+        long read(int n) {
+            int word = (int) (this.position >>> 6);
+            int free = 64 - (int) (this.position & 63);
+            long value;
+            if(n <= free) {
+                value = (this.words[word] >>> (free - n)) & mask(n);
+            }
+            else {
+                int rest = n - free;
+                value = ((this.words[word] & mask(free)) << rest) | (this.words[word + 1] >>> (64 - rest));
+            }
+            this.position += n;
+            return value;
+        }
+    }
+}
@@ -0,0 +1,600 @@
+/*
+ * This library is free software; you can redistribute it and/or modify it under the terms of
+ * the GNU Lesser General Public License as published by the Free Software Foundation.
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ */
+
+package timeseries.storage;
+
+import timeseries.RegularlyTimeSeries;
+import timeseries.concurrent.RangeTask;
+
+import java.io.IOException;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Reads regularly time series from CSV data like
+ * t,x1,x2,..
+ * Every value column becomes one RegularlyTimeSeries. The t-values are numbers or ISO-8601 timestamps like
+ * 2015-08-20T12:00:00.5Z (UTC if there isn't any offset), which become seconds since 1970-01-01.
+ * The bytes are parsed directly from a ByteBuffer (or a memory-mapped file), there isn't any String per line.
+ * The data is split into chunks at line breaks, which are parsed in parallel on a fork-join pool. The rows are
+ * merged into the time series by one task per value column.
+ * The spacing is detected from the t-values (the most common difference), if it isn't set. Every row is put on
+ * the tick next to its t-value, so rows can be out of order. Missing ticks and missing fields become NaN, a later
+ * row replaces an earlier row on the same tick. A row without a (finite) t-value is an error.
+ */
+public class CsvReader {
+    /**
+     * Largest chunk, which is parsed by one task (and mapped at once)
+     */
+    private static final int MAX_CHUNK_SIZE = 1 << 26;
+    /**
+     * Smallest chunk, it's not worth to split smaller buffers
+     */
+    private static final int MIN_CHUNK_SIZE = 1 << 20;
+    /**
+     * The spacing is detected from the differences between the first rows
+     */
+    private static final int SPACING_SAMPLE = 4096;
+    /**
+     * Differences, which differ by at most this fraction, count as the same step (jittered timestamps)
+     */
+    private static final double SPACING_TOLERANCE = 0.01;
+    /**
+     * A time series may have at most this many ticks per row, more means a wrong t-value or spacing
+     */
+    private static final long MAX_TICKS_PER_ROW = 1024;
+    /**
+     * Exact powers of ten, a double can represent them without rounding
+     */
+    private static final double[] POWERS_OF_TEN = {1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11,
+            1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22};
+
+    /**
+     * The separator of the fields
+     */
+    private final byte delimiter;
+    /**
+     * Is the first line a header?
+     */
+    private final boolean header;
+    /**
+     * The spacing of the time series, 0 if it should be detected
+     */
+    private double spacing;
+    /**
+     * The pool, which parses the chunks
+     */
+    private ForkJoinPool pool;
+
+    /**
+     * Initialize a CsvReader for comma separated values without header
+     */
+    public CsvReader() {
+        this(',', false);
+    }
+
+    /**
+     * Initialize a CsvReader
+     * @param delimiter the separator of the fields, e.g. ',' or ';' or '\t'
+     * @param header true, if the first line is a header, which is skipped
+     */
+    public CsvReader(char delimiter, boolean header) {
+        if(delimiter > 127 || delimiter == '\n' || delimiter == '\r') {
+            throw new IllegalArgumentException("Illegal delimiter: " + delimiter);
+        }
+        this.delimiter = (byte) delimiter;
+        this.header = header;
+        this.pool = ForkJoinPool.commonPool();
+    }
+
+    /**
+     * Gets the spacing of the read time series
+     * @return the spacing or 0, if it's detected
+     */
+    public double getSpacing() {
+        return spacing;
+    }
+
+    /**
+     * Sets the spacing of the read time series. Use 0 to detect it from the t-values: it is the most common
+     * difference between the first rows.
+     * @param spacing the spacing
+     */
+    public void setSpacing(double spacing) {
+        if(spacing < 0) {
+            throw new IllegalArgumentException("Illegal spacing: " + spacing);
+        }
+        this.spacing = spacing;
+    }
+
+    /**
+     * Gets the pool, which parses the chunks
+     * @return the pool
+     */
+    public ForkJoinPool getPool() {
+        return pool;
+    }
+
+    /**
+     * Sets the pool, which parses the chunks
+     * @param pool the new pool
+     */
+    public void setPool(ForkJoinPool pool) {
+        this.pool = pool;
+    }
+
+    /**
+     * Reads a CSV file. The file is memory-mapped in chunks, so it can be larger than the heap.
+     * @param path the file
+     * @return a time series for every value column
+     * @throws IOException if the file can't be read
+     */
+    public RegularlyTimeSeries[] read(Path path) throws IOException {
+        List<Chunk> chunks = new ArrayList<>();
+        try(FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long size = channel.size();
+            int chunkSize = this.chunkSize(size);
+            long start = 0;
+            while(start < size) {
+                long end = start + chunkSize >= size ? size : nextLine(channel, start + chunkSize);
+                if(end - start > Integer.MAX_VALUE) {
+                    throw new IOException("A line of " + path + " is too long");
+                }
+                ByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, start, end - start);
+                chunks.add(new Chunk(buffer, start, 0, (int) (end - start), start == 0 && this.header));
+                start = end;
+            }
+        }
+        return this.read(chunks);
+    }
+
+    /**
+     * Reads CSV data from the remaining bytes of a buffer. The position of the buffer isn't changed.
+     * @param buffer the data, e.g. a MappedByteBuffer
+     * @return a time series for every value column
+     */
+    public RegularlyTimeSeries[] read(ByteBuffer buffer) {
+        int from = buffer.position();
+        int to = buffer.limit();
+        int chunkSize = this.chunkSize(to - from);
+        List<Chunk> chunks = new ArrayList<>();
+        int start = from;
+        while(start < to) {
+            int end = to - start <= chunkSize ? to : nextLine(buffer, start + chunkSize, to);
+            chunks.add(new Chunk(buffer, 0, start, end, start == from && this.header));
+            start = end;
+        }
+        return this.read(chunks);
+    }
+
+    /**
+     * Every worker of the pool should get some chunks, so it can steal work, if its own chunks are done
+     */
+    private int chunkSize(long size) {
+        long chunkSize = size / (4L * this.pool.getParallelism()) + 1;
+        return (int) Math.min(Math.max(chunkSize, MIN_CHUNK_SIZE), MAX_CHUNK_SIZE);
+    }
+
+    /**
+     * Parses the chunks in parallel and puts the rows on their ticks
+     */
+    private RegularlyTimeSeries[] read(List<Chunk> chunks) {
+        this.pool.invoke(new RangeTask(0, chunks.size(), c -> chunks.get(c).parse(this.delimiter)));
+        int columns = 0;
+        long rows = 0;
+        double t0 = Double.POSITIVE_INFINITY;
+        for(Chunk chunk : chunks) {
+            columns = Math.max(columns, chunk.columns.size());
+            rows += chunk.times.size();
+            t0 = Math.min(t0, chunk.minT);
+        }
+        if(t0 == Double.POSITIVE_INFINITY) {
+            return new RegularlyTimeSeries[0];
+        }
+        double step = this.spacing > 0 ? this.spacing : detectSpacing(chunks);
+        double first = t0;
+        //Check the tick of every row first, a single outlier mustn't pad the time series until the heap is full
+        long maxTicks = Math.min(Integer.MAX_VALUE - 8, Math.max(rows, 1) * MAX_TICKS_PER_ROW);
+        long[] firstRows = new long[chunks.size()];
+        for(int c = 1; c < chunks.size(); c++) {
+            firstRows[c] = firstRows[c - 1] + chunks.get(c - 1).times.size();
+        }
+        long[] chunkTicks = new long[chunks.size()];
+        this.pool.invoke(new RangeTask(0, chunks.size(), c -> {
+            ArrayStorage times = chunks.get(c).times;
+            long chunkRows = times.size();
+            for(long r = 0; r < chunkRows; r++) {
+                double t = times.get(r);
+                long index = Math.round((t - first) / step);
+                if(index >= maxTicks) {
+                    throw new IllegalArgumentException("The t-value " + t + " of row " + (firstRows[c] + r + 1)
+                            + " is " + index + " ticks after the first one, at most " + maxTicks + " are allowed");
+                }
+                chunkTicks[c] = Math.max(chunkTicks[c], index + 1);
+            }
+        }));
+        long ticks = 0;
+        for(long chunkTick : chunkTicks) {
+            ticks = Math.max(ticks, chunkTick);
+        }
+        RegularlyTimeSeries[] result = new RegularlyTimeSeries[columns];
+        int length = (int) ticks;
+        //Every column is merged by its own task, a file with a single value column is merged sequentially.
+        //The rows have to be merged in order, so that a later row replaces an earlier row on the same tick.
+        this.pool.invoke(new RangeTask(0, columns, c -> {
+            double[] merged = new double[length];
+            Arrays.fill(merged, Double.NaN);
+            for(Chunk chunk : chunks) {
+                ArrayStorage values = c < chunk.columns.size() ? chunk.columns.get(c) : null;
+                long chunkRows = chunk.times.size();
+                for(long r = 0; r < chunkRows; r++) {
+                    int index = (int) Math.round((chunk.times.get(r) - first) / step);
+                    merged[index] = values != null && r < values.size() ? values.get(r) : Double.NaN;
+                }
+            }
+            result[c] = new RegularlyTimeSeries(step, first, ArrayStorage.wrap(merged, length));
+        }));
+        return result;
+    }
+
+    /**
+     * Detects the spacing: the most common positive difference between the first rows. Differences within
+     * SPACING_TOLERANCE of each other are grouped, so jittered timestamps (59.999, 60, 60.001) give 60, and a
+     * single tiny difference between two jittered rows can't become the spacing. Missing rows make some
+     * differences larger, but they don't change the most common one.
+     */
+    private static double detectSpacing(List<Chunk> chunks) {
+        double[] differences = new double[SPACING_SAMPLE];
+        int count = 0;
+        int sampled = 0;
+        double previous = Double.NaN;
+        for(Chunk chunk : chunks) {
+            long rows = chunk.times.size();
+            for(long r = 0; r < rows && sampled < SPACING_SAMPLE; r++, sampled++) {
+                double t = chunk.times.get(r);
+                double difference = Math.abs(t - previous);
+                if(difference > 0) {
+                    differences[count++] = difference;
+                }
+                previous = t;
+            }
+        }
+        if(count == 0) {
+            return 1;
+        }
+        Arrays.sort(differences, 0, count);
+        //Find the largest group of similar differences, a tie keeps the smaller step
+        int bestStart = 0;
+        int bestLength = 0;
+        int start = 0;
+        while(start < count) {
+            int end = start + 1;
+            while(end < count && differences[end] <= differences[start] * (1 + SPACING_TOLERANCE)) {
+                end++;
+            }
+            if(end - start > bestLength) {
+                bestStart = start;
+                bestLength = end - start;
+            }
+            start = end;
+        }
+        return differences[bestStart + bestLength / 2];
+    }
+
+    /**
+     * Finds the start of the first line at or after position
+     */
+    private static long nextLine(FileChannel channel, long position) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(1 << 16);
+        long start = position - 1;
+        while(true) {
+            ((Buffer) buffer).clear();
+            int n = channel.read(buffer, start);
+            if(n <= 0) {
+                return channel.size();
+            }
+            for(int i = 0; i < n; i++) {
+                if(buffer.get(i) == '\n') {
+                    return start + i + 1;
+                }
+            }
+            start += n;
+        }
+    }
+
+    /**
+     * Finds the start of the first line at or after position
+     */
+    private static int nextLine(ByteBuffer buffer, int position, int limit) {
+        for(int i = position - 1; i < limit; i++) {
+            if(buffer.get(i) == '\n') {
+                return i + 1;
+            }
+        }
+        return limit;
+    }
+
+    /**
+     * Parses a number from bytes [from, to), surrounding spaces are ignored. An empty field is NaN.
+     * Numbers with at most 15 digits and a small exponent are calculated exactly without any object, other
+     * numbers are passed to Double.parseDouble.
+     * @param buffer the bytes
+     * @param from first byte
+     * @param to last byte (excluding this one)
+     * @return the number
+     */
+    static double parseDouble(ByteBuffer buffer, int from, int to) {
+        while(from < to && buffer.get(from) == ' ') {
+            from++;
+        }
+        while(to > from && buffer.get(to - 1) == ' ') {
+            to--;
+        }
+        if(from == to) {
+            return Double.NaN;
+        }
+        int i = from;
+        boolean negative = buffer.get(i) == '-';
+        if(negative || buffer.get(i) == '+') {
+            i++;
+        }
+        long mantissa = 0;
+        int digits = 0;
+        int exponent = 0;
+        boolean any = false;
+        boolean point = false;
+        for(; i < to; i++) {
+            byte b = buffer.get(i);
+            if(b >= '0' && b <= '9') {
+                any = true;
+                if(mantissa == 0 && b == '0') {
+                    //Leading zeros aren't significant
+                }
+                else if(digits < 18) {
+                    mantissa = mantissa * 10 + (b - '0');
+                    digits++;
+                }
+                else {
+                    return parseSlowly(buffer, from, to);
+                }
+                if(point) {
+                    exponent--;
+                }
+            }
+            else if(b == '.' && !point) {
+                point = true;
+            }
+            else {
+                break;
+            }
+        }
+        if(i < to) {
+            byte b = buffer.get(i);
+            if(!any || (b != 'e' && b != 'E')) {
+                return parseSlowly(buffer, from, to);
+            }
+            i++;
+            boolean negativeExponent = i < to && buffer.get(i) == '-';
+            if(i < to && (negativeExponent || buffer.get(i) == '+')) {
+                i++;
+            }
+            int e = 0;
+            if(i == to) {
+                return parseSlowly(buffer, from, to);
+            }
+            for(; i < to; i++) {
+                b = buffer.get(i);
+                if(b < '0' || b > '9' || e > 10000) {
+                    return parseSlowly(buffer, from, to);
+                }
+                e = e * 10 + (b - '0');
+            }
+            exponent += negativeExponent ? -e : e;
+        }
+        if(!any) {
+            return parseSlowly(buffer, from, to);
+        }
+        if(digits > 15 || exponent < -22 || exponent > 22) {
+            return parseSlowly(buffer, from, to);
+        }
+        double value = exponent < 0 ? mantissa / POWERS_OF_TEN[-exponent] : mantissa * POWERS_OF_TEN[exponent];
+        return negative ? -value : value;
+    }
+
+    /**
+     * Parses numbers, which need a correct rounding, or special values like NaN
+     */
+    private static double parseSlowly(ByteBuffer buffer, int from, int to) {
+        byte[] bytes = new byte[to - from];
+        for(int i = 0; i < bytes.length; i++) {
+            bytes[i] = buffer.get(from + i);
+        }
+        String text = new String(bytes, StandardCharsets.US_ASCII);
+        try {
+            return Double.parseDouble(text);
+        }
+        catch(NumberFormatException e) {
+            throw new IllegalArgumentException("Not a number: \"" + text + "\"", e);
+        }
+    }
+
+    /**
+     * Parses a t-value: a number or an ISO-8601 timestamp yyyy-MM-dd[T ]HH:mm[:ss[.fraction]][Z|+HH:mm|-HH:mm],
+     * which becomes seconds since 1970-01-01 UTC.
+     */
+    static double parseTime(ByteBuffer buffer, int from, int to) {
+        while(from < to && buffer.get(from) == ' ') {
+            from++;
+        }
+        while(to > from && buffer.get(to - 1) == ' ') {
+            to--;
+        }
+        if(to - from < 10 || buffer.get(from + 4) != '-' || buffer.get(from + 7) != '-') {
+            return parseDouble(buffer, from, to);
+        }
+        long year = digits(buffer, from, 4);
+        long month = digits(buffer, from + 5, 2);
+        long day = digits(buffer, from + 8, 2);
+        double seconds = 0;
+        int i = from + 10;
+        if(i < to) {
+            byte separator = buffer.get(i);
+            if((separator != 'T' && separator != ' ') || to - i < 6 || buffer.get(i + 3) != ':') {
+                throw new IllegalArgumentException("Illegal timestamp at byte " + from);
+            }
+            seconds = digits(buffer, i + 1, 2) * 3600 + digits(buffer, i + 4, 2) * 60;
+            i += 6;
+            if(i < to && buffer.get(i) == ':') {
+                seconds += digits(buffer, i + 1, 2);
+                i += 3;
+                if(i < to && buffer.get(i) == '.') {
+                    int end = i + 1;
+                    while(end < to && buffer.get(end) >= '0' && buffer.get(end) <= '9') {
+                        end++;
+                    }
+                    seconds += parseDouble(buffer, i, end);
+                    i = end;
+                }
+            }
+            if(i < to) {
+                byte zone = buffer.get(i);
+                if(zone == '+' || zone == '-') {
+                    if(to - i < 6 || buffer.get(i + 3) != ':') {
+                        throw new IllegalArgumentException("Illegal timestamp at byte " + from);
+                    }
+                    long offset = digits(buffer, i + 1, 2) * 3600 + digits(buffer, i + 4, 2) * 60;
+                    seconds -= zone == '+' ? offset : -offset;
+                    i += 6;
+                }
+                else if(zone == 'Z') {
+                    i++;
+                }
+                if(i != to) {
+                    throw new IllegalArgumentException("Illegal timestamp at byte " + from);
+                }
+            }
+        }
+        return daysFromCivil(year, month, day) * 86400.0 + seconds;
+    }
+
+    /**
+     * Parses a fixed amount of decimal digits
+     */
+    private static long digits(ByteBuffer buffer, int from, int count) {
+        long value = 0;
+        for(int i = from; i < from + count; i++) {
+            byte b = buffer.get(i);
+            if(b < '0' || b > '9') {
+                throw new IllegalArgumentException("Illegal timestamp at byte " + i);
+            }
+            value = value * 10 + (b - '0');
+        }
+        return value;
+    }
+
+    /**
+     * Counts the days since 1970-01-01 in the proleptic gregorian calendar (H. Hinnant)
+     */
+    private static long daysFromCivil(long year, long month, long day) {
+        year -= month <= 2 ? 1 : 0;
+        long era = Math.floorDiv(year, 400);
+        long yearOfEra = year - era * 400;
+        long dayOfYear = (153 * (month + (month > 2 ? -3 : 9)) + 2) / 5 + day - 1;
+        long dayOfEra = yearOfEra * 365 + yearOfEra / 4 - yearOfEra / 100 + dayOfYear;
+        return era * 146097 + dayOfEra - 719468;
+    }
+
+    /**
+     * A part of the data, which ends at a line break. It collects its rows in primitive columns.
+     */
+    private static final class Chunk {
+        final ByteBuffer buffer;
+        final int start;
+        final int end;
+        final boolean skipFirstLine;
+        /**
+         * Position of the first byte of the buffer in the whole data, for error messages
+         */
+        final long offset;
+        final ArrayStorage times = new ArrayStorage();
+        final List<ArrayStorage> columns = new ArrayList<>();
+        double minT = Double.POSITIVE_INFINITY;
+
+        Chunk(ByteBuffer buffer, long offset, int start, int end, boolean skipFirstLine) {
+            this.buffer = buffer;
+            this.offset = offset;
+            this.start = start;
+            this.end = end;
+            this.skipFirstLine = skipFirstLine;
+        }
+
+        void parse(byte delimiter) {
+            ByteBuffer b = this.buffer;
+            int position = this.skipFirstLine ? nextLine(b, this.start + 1, this.end) : this.start;
+            while(position < this.end) {
+                int lineEnd = position;
+                while(lineEnd < this.end && b.get(lineEnd) != '\n') {
+                    lineEnd++;
+                }
+                int stop = lineEnd > position && b.get(lineEnd - 1) == '\r' ? lineEnd - 1 : lineEnd;
+                if(stop > position) {
+                    this.parseLine(position, stop, delimiter);
+                }
+                position = lineEnd + 1;
+            }
+        }
+
+        private void parseLine(int from, int to, byte delimiter) {
+            ByteBuffer b = this.buffer;
+            int fieldEnd = from;
+            while(fieldEnd < to && b.get(fieldEnd) != delimiter) {
+                fieldEnd++;
+            }
+            double t = parseTime(b, from, fieldEnd);
+            if(!Double.isFinite(t)) {
+                //Math.round would put the row on the first tick
+                throw new IllegalArgumentException("Missing or non-finite t-value at byte " + (this.offset + from));
+            }
+            long row = this.times.size();
+            this.times.add(t);
+            if(t < this.minT) {
+                this.minT = t;
+            }
+            int column = 0;
+            while(fieldEnd < to) {
+                int fieldStart = fieldEnd + 1;
+                fieldEnd = fieldStart;
+                while(fieldEnd < to && b.get(fieldEnd) != delimiter) {
+                    fieldEnd++;
+                }
+                if(column == this.columns.size()) {
+                    //A new column, the earlier rows haven't got a value there
+                    ArrayStorage values = new ArrayStorage();
+                    for(long r = 0; r < row; r++) {
+                        values.add(Double.NaN);
+                    }
+                    this.columns.add(values);
+                }
+                this.columns.get(column).add(parseDouble(b, fieldStart, fieldEnd));
+                column++;
+            }
+            for(; column < this.columns.size(); column++) {
+                this.columns.get(column).add(Double.NaN);
+            }
+        }
+    }
+}
@@ -0,0 +1,124 @@
+/*
+ * This library is free software; you can redistribute it and/or modify it under the terms of
+ * the GNU Lesser General Public License as published by the Free Software Foundation.
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ */
+
+package timeseries.storage;
+
+import java.io.IOException;
+import java.nio.Buffer;
+import java.nio.ByteOrder;
+import java.nio.DoubleBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * Keeps the values in a read-only memory-mapped file. The values are read directly from the page cache,
+ * nothing is copied onto the heap.
+ * A single mapping can't be larger than 2 GB, so the file is mapped in chunks.
+ */
+public class MappedStorage extends Storage {
+    /**
+     * Every chunk contains 2^CHUNK_SHIFT values (1 GB)
+     */
+    private static final int CHUNK_SHIFT = 27;
+    /**
+     * Mask for the position inside a chunk
+     */
+    private static final long CHUNK_MASK = (1L << CHUNK_SHIFT) - 1;
+    /**
+     * The mapped chunks
+     */
+    private final DoubleBuffer[] chunks;
+    /**
+     * The amount of values
+     */
+    private final long size;
+
+    /**
+     * Maps "size" little-endian doubles of the channel, starting at byte "position".
+     * The channel can be closed afterwards, the mapping stays valid.
+     * @param channel a channel opened for reading
+     * @param position byte position of the first value
+     * @param size amount of values
+     * @throws IOException if the channel can't be mapped
+     */
+    public MappedStorage(FileChannel channel, long position, long size) throws IOException {
+        int chunkCount = (int) ((size + CHUNK_MASK) >>> CHUNK_SHIFT);
+        this.chunks = new DoubleBuffer[chunkCount];
+        for(int c = 0; c < chunkCount; c++) {
+            long first = (long) c << CHUNK_SHIFT;
+            long values = Math.min(size - first, 1L << CHUNK_SHIFT);
+            this.chunks[c] = channel.map(FileChannel.MapMode.READ_ONLY, position + first * Double.BYTES,
+                    values * Double.BYTES).order(ByteOrder.LITTLE_ENDIAN).asDoubleBuffer();
+        }
+        this.size = size;
+    }
+
+    @Override
+    public long size() {
+        return this.size;
+    }
+
+    @Override
+    public double get(long index) {
+        if(index < 0 || index >= this.size) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + this.size);
+        }
+        return this.chunks[(int) (index >>> CHUNK_SHIFT)].get((int) (index & CHUNK_MASK));
+    }
+
+    /**
+     * A MappedStorage is read-only.
+     * @throws UnsupportedOperationException always
+     */
+    @Override
+    public void set(long index, double x) {
+        throw new UnsupportedOperationException("A MappedStorage is read-only");
+    }
+
+    /**
+     * A MappedStorage is read-only.
+     * @throws UnsupportedOperationException always
+     */
+    @Override
+    public void add(double x) {
+        throw new UnsupportedOperationException("A MappedStorage is read-only");
+    }
+
+    @Override
+    public void copyTo(long from, double[] dst, int offset, int length) {
+        if(length > 0) {
+            this.checkIndex(from);
+            this.checkIndex(from + length - 1);
+        }
+        while(length > 0) {
+            int c = (int) (from >>> CHUNK_SHIFT);
+            int position = (int) (from & CHUNK_MASK);
+            DoubleBuffer chunk = this.chunks[c].duplicate();
+            int n = Math.min(length, chunk.limit() - position);
+            ((Buffer) chunk).position(position);
+            chunk.get(dst, offset, n);
+            from += n;
+            offset += n;
+            length -= n;
+        }
+    }
+
+    /**
+     * Copies the values onto the heap
+     * @return an ArrayStorage with the values
+     */
+    @Override
+    public ArrayStorage copy() {
+        if(this.size > Integer.MAX_VALUE - 8) {
+            throw new IllegalStateException("The storage is too large for an ArrayStorage");
+        }
+        double[] values = new double[(int) this.size];
+        this.copyTo(0, values, 0, values.length);
+        return ArrayStorage.wrap(values, values.length);
+    }
+}
@@ -0,0 +1,178 @@
+/*
+ * This library is free software; you can redistribute it and/or modify it under the terms of
+ * the GNU Lesser General Public License as published by the Free Software Foundation.
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ */
+
+package timeseries.storage;
+
+import timeseries.RegularlyTimeSeries;
+
+/**
+ * Keeps many regularly time series of the same length and spacing in one double array (struct-of-arrays).
+ * The values are stored time-major: all series at t=0, then all series at t=1 and so on.
+ * So an algorithm, which walks over the time, can update all series of one tick in a tight loop over
+ * neighbouring values.
+ */
+public class SeriesBlock {
+    /**
+     * The amount of series in the block
+     */
+    private final int series;
+    /**
+     * The amount of values of every series
+     */
+    private final int length;
+    /**
+     * The spacing of every series
+     */
+    private final double spacing;
+    /**
+     * The values, the value of series s at tick t is at position t*series+s
+     */
+    private final double[] values;
+
+    /**
+     * Initialize an empty block with spacing 1.
+     * @param series amount of series
+     * @param length amount of values of every series
+     */
+    public SeriesBlock(int series, int length) {
+        this(series, length, 1);
+    }
+
+    /**
+     * Initialize an empty block.
+     * @param series amount of series
+     * @param length amount of values of every series
+     * @param spacing spacing of every series
+     */
+    public SeriesBlock(int series, int length, double spacing) {
+        this(series, length, spacing, new double[Math.multiplyExact(series, length)]);
+    }
+
+    /**
+     * Initialize a block on top of an existing array. The array isn't copied.
+     * @param series amount of series
+     * @param length amount of values of every series
+     * @param spacing spacing of every series
+     * @param values time-major values, at least series*length long
+     */
+    public SeriesBlock(int series, int length, double spacing, double[] values) {
+        if(series < 0 || length < 0 || values.length < (long) series * length) {
+            throw new IllegalArgumentException("Illegal block: " + series + " x " + length
+                    + " with " + values.length + " values");
+        }
+        this.series = series;
+        this.length = length;
+        this.spacing = spacing;
+        this.values = values;
+    }
+
+    /**
+     * Creates a block of the given time series. All of them need the same size and spacing.
+     * @param ts the time series
+     * @return the block
+     */
+    public static SeriesBlock of(RegularlyTimeSeries... ts) {
+        for(RegularlyTimeSeries series : ts) {
+            if(series.getSpacing() != ts[0].getSpacing()) {
+                throw new IllegalArgumentException("All time series need the same spacing");
+            }
+        }
+        int length = ts.length == 0 ? 0 : (int) ts[0].size();
+        SeriesBlock block = new SeriesBlock(ts.length, length, ts.length == 0 ? 1 : ts[0].getSpacing());
+        for(int s = 0; s < ts.length; s++) {
+            block.setSeries(s, ts[s]);
+        }
+        return block;
+    }
+
+    /**
+     * Gets the amount of series
+     * @return amount of series
+     */
+    public int getSeries() {
+        return series;
+    }
+
+    /**
+     * Gets the amount of values of every series
+     * @return amount of values
+     */
+    public int getLength() {
+        return length;
+    }
+
+    /**
+     * Gets the spacing of every series
+     * @return spacing
+     */
+    public double getSpacing() {
+        return spacing;
+    }
+
+    /**
+     * Gets the backing array. The value of series s at tick t is at position t*getSeries()+s.
+     * @return the backing array
+     */
+    public double[] getValues() {
+        return values;
+    }
+
+    /**
+     * Gets the value of series s at tick t
+     * @param s series
+     * @param t tick
+     * @return the value
+     */
+    public double get(int s, int t) {
+        return this.values[t * this.series + s];
+    }
+
+    /**
+     * Sets the value of series s at tick t
+     * @param s series
+     * @param t tick
+     * @param x the new value
+     */
+    public void set(int s, int t, double x) {
+        this.values[t * this.series + s] = x;
+    }
+
+    /**
+     * Copies the values of a time series into series s
+     * @param s series
+     * @param ts time series with exactly getLength() values
+     */
+    public void setSeries(int s, RegularlyTimeSeries ts) {
+        if(ts.size() != this.length) {
+            throw new IllegalArgumentException("Expected " + this.length + " values, but got " + ts.size());
+        }
+        for(int t = 0; t < this.length; t++) {
+            this.values[t * this.series + s] = ts.getX(t);
+        }
+    }
+
+    /**
+     * Copies series s into a new time series
+     * @param s series
+     * @param t0 t-value of the first DataPoint
+     * @return the time series
+     */
+    public RegularlyTimeSeries toTimeSeries(int s, double t0) {
+        RegularlyTimeSeries ts = new RegularlyTimeSeries(this.spacing, 0, new ArrayStorage(this.length));
+        for(int t = 0; t < this.length; t++) {
+            if(t == 0) {
+                ts.addFirstDataPoint(t0, this.values[s]);
+            }
+            else {
+                ts.addX(this.values[t * this.series + s]);
+            }
+        }
+        return ts;
+    }
+}
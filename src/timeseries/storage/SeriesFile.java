@@ -0,0 +1,129 @@
+/*
+ * This library is free software; you can redistribute it and/or modify it under the terms of
+ * the GNU Lesser General Public License as published by the Free Software Foundation.
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ */
+
+package timeseries.storage;
+
+import timeseries.RegularlyTimeSeries;
+
+import java.io.IOException;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.DoubleBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Reads and writes regularly time series in a compact binary format.
+ * The format is little-endian:
+ * - int magic number "JTS1"
+ * - int version
+ * - double t0
+ * - double spacing
+ * - long count
+ * - count doubles, the x-values
+ * The t-values are not stored, because they are calculated from t0 and the spacing.
+ */
+public final class SeriesFile {
+    /**
+     * The magic number "JTS1"
+     */
+    public static final int MAGIC = 0x4A545331;
+    /**
+     * The current version of the format
+     */
+    public static final int VERSION = 1;
+    /**
+     * The size of the header in bytes
+     */
+    public static final int HEADER_SIZE = 32;
+    /**
+     * The amount of values, which are written at once
+     */
+    private static final int WRITE_BUFFER_VALUES = 8192;
+
+    private SeriesFile() {
+    }
+
+    /**
+     * Writes a time series into a file. An existing file will be replaced.
+     * @param ts the time series
+     * @param path the file
+     * @throws IOException if the file can't be written
+     */
+    public static void write(RegularlyTimeSeries ts, Path path) throws IOException {
+        long size = ts.size();
+        try(FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+            header.putInt(MAGIC);
+            header.putInt(VERSION);
+            header.putDouble(size > 0 ? ts.getT(0) : 0);
+            header.putDouble(ts.getSpacing());
+            header.putLong(size);
+            ((Buffer) header).flip();
+            writeFully(channel, header);
+            ByteBuffer buffer = ByteBuffer.allocateDirect(WRITE_BUFFER_VALUES * Double.BYTES)
+                    .order(ByteOrder.LITTLE_ENDIAN);
+            DoubleBuffer doubles = buffer.asDoubleBuffer();
+            double[] values = new double[WRITE_BUFFER_VALUES];
+            for(long from = 0; from < size; from += WRITE_BUFFER_VALUES) {
+                int n = (int) Math.min(WRITE_BUFFER_VALUES, size - from);
+                ts.getStorage().copyTo(from, values, 0, n);
+                ((Buffer) doubles).clear();
+                doubles.put(values, 0, n);
+                ((Buffer) buffer).clear();
+                ((Buffer) buffer).limit(n * Double.BYTES);
+                writeFully(channel, buffer);
+            }
+        }
+    }
+
+    /**
+     * Opens a time series file read-only. The values are memory-mapped, nothing is copied.
+     * @param path the file
+     * @return the time series
+     * @throws IOException if the file can't be read or isn't a time series file
+     */
+    public static RegularlyTimeSeries open(Path path) throws IOException {
+        try(FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+            while(header.hasRemaining()) {
+                if(channel.read(header) < 0) {
+                    throw new IOException(path + " is too short for a time series file");
+                }
+            }
+            ((Buffer) header).flip();
+            if(header.getInt() != MAGIC) {
+                throw new IOException(path + " isn't a time series file");
+            }
+            int version = header.getInt();
+            if(version != VERSION) {
+                throw new IOException(path + " has the unsupported version " + version);
+            }
+            double t0 = header.getDouble();
+            double spacing = header.getDouble();
+            long count = header.getLong();
+            if(count < 0 || channel.size() < HEADER_SIZE + count * Double.BYTES) {
+                throw new IOException(path + " is too short for " + count + " values");
+            }
+            return new RegularlyTimeSeries(spacing, t0, new MappedStorage(channel, HEADER_SIZE, count));
+        }
+    }
+
+    /**
+     * Writes the remaining bytes of the buffer
+     */
+    private static void writeFully(FileChannel channel, ByteBuffer buffer) throws IOException {
+        while(buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+    }
+}
@@ -0,0 +1,122 @@
+/*
+ * This library is free software; you can redistribute it and/or modify it under the terms of
+ * the GNU Lesser General Public License as published by the Free Software Foundation.
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ */
+
+package timeseries.storage;
+
+import java.util.function.DoubleConsumer;
+
+/**
+ * Represents the storage backend of a time series.
+ * A storage only keeps the column of the dependent variable x. The independent variable t is
+ * derived by the time series itself (e.g. a regularly time series only needs t0 and the spacing).
+ * Different implementations can keep the values on the heap, in a file or compressed.
+ */
+public abstract class Storage {
+    /**
+     * Counts the calls of set. Appending values doesn't count as modification.
+     */
+    protected long modifications;
+
+    /**
+     * Counts the values in the storage.
+     * @return amount of values
+     */
+    public abstract long size();
+
+    /**
+     * Gets the value at index "index"
+     * @param index position in the storage
+     * @return the value
+     */
+    public abstract double get(long index);
+
+    /**
+     * Sets the value at index "index"
+     * @param index position in the storage
+     * @param x the new value
+     */
+    public abstract void set(long index, double x);
+
+    /**
+     * Gets the amount of modifications by set. Users of the storage can compare it to find out, whether values,
+     * they have seen before, were changed.
+     * @return the amount of modifications
+     */
+    public long getModifications() {
+        return this.modifications;
+    }
+
+    /**
+     * Appends a value at the end of the storage.
+     * @param x the new value
+     */
+    public abstract void add(double x);
+
+    /**
+     * Inserts a value at index "index", the following values move one position back.
+     * It counts as modification, because the values at the following indices change.
+     * @param index position of the new value, between 0 and size()
+     * @param x the new value
+     * @throws UnsupportedOperationException if the storage can't insert values
+     */
+    public void insert(long index, double x) {
+        throw new UnsupportedOperationException("A " + this.getClass().getSimpleName() + " can't insert values");
+    }
+
+    /**
+     * Copies "length" values, starting at index "from", into the array "dst" at position "offset".
+     * Implementations should override this method, if they can copy faster than value by value.
+     * @param from first index in the storage
+     * @param dst destination array
+     * @param offset first position in the destination array
+     * @param length amount of values
+     */
+    public void copyTo(long from, double[] dst, int offset, int length) {
+        if(length > 0) {
+            this.checkIndex(from);
+            this.checkIndex(from + length - 1);
+        }
+        for(int i = 0; i < length; i++) {
+            dst[offset + i] = this.get(from + i);
+        }
+    }
+
+    /**
+     * Passes "length" values, starting at index "from", in order to the consumer.
+     * Implementations should override this method, if they can read sequentially faster than value by value.
+     * @param from first index in the storage
+     * @param length amount of values
+     * @param consumer receives the values
+     */
+    public void forEach(long from, long length, DoubleConsumer consumer) {
+        if(length > 0) {
+            this.checkIndex(from);
+            this.checkIndex(from + length - 1);
+        }
+        for(long i = from; i < from + length; i++) {
+            consumer.accept(this.get(i));
+        }
+    }
+
+    /**
+     * Creates a copy of this storage. The copy is totally independent from the original.
+     * @return the copy
+     */
+    public abstract Storage copy();
+
+    /**
+     * Checks the index and throws an IndexOutOfBoundsException, if it is not inside the storage.
+     * @param index position in the storage
+     */
+    protected void checkIndex(long index) {
+        if(index < 0 || index >= this.size()) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + this.size());
+        }
+    }
+}
@@ -0,0 +1,128 @@
+/*
+ * This library is free software; you can redistribute it and/or modify it under the terms of
+ * the GNU Lesser General Public License as published by the Free Software Foundation.
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ */
+
+package timeseries.storage;
+
+import java.util.function.DoubleConsumer;
+
+/**
+ * A read-only window [offset, offset+length) of another storage.
+ * Creating a view costs O(1), every read goes through to the parent storage. So changes of the parent are
+ * visible in the view. Use copy to get independent values.
+ */
+public class ViewStorage extends Storage {
+    /**
+     * The storage, which really keeps the values
+     */
+    private final Storage parent;
+    /**
+     * The index of the first value in the parent storage
+     */
+    private final long offset;
+    /**
+     * The amount of values
+     */
+    private final long length;
+
+    /**
+     * Initialize a view of parent[offset, offset+length).
+     * A view of a view refers directly to the storage of the values.
+     * @param parent the parent storage
+     * @param offset the index of the first value in the parent storage
+     * @param length the amount of values
+     */
+    public ViewStorage(Storage parent, long offset, long length) {
+        if(offset < 0 || length < 0 || offset + length > parent.size()) {
+            throw new IndexOutOfBoundsException("View [" + offset + ", " + (offset + length)
+                    + ") of a storage with size " + parent.size());
+        }
+        if(parent instanceof ViewStorage) {
+            ViewStorage view = (ViewStorage) parent;
+            this.parent = view.parent;
+            this.offset = view.offset + offset;
+        }
+        else {
+            this.parent = parent;
+            this.offset = offset;
+        }
+        this.length = length;
+    }
+
+    @Override
+    public long size() {
+        return this.length;
+    }
+
+    @Override
+    public double get(long index) {
+        if(index < 0 || index >= this.length) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + this.length);
+        }
+        return this.parent.get(this.offset + index);
+    }
+
+    /**
+     * A ViewStorage is read-only.
+     * @throws UnsupportedOperationException always
+     */
+    @Override
+    public void set(long index, double x) {
+        throw new UnsupportedOperationException("A ViewStorage is read-only, copy it first");
+    }
+
+    /**
+     * A ViewStorage is read-only.
+     * @throws UnsupportedOperationException always
+     */
+    @Override
+    public void add(double x) {
+        throw new UnsupportedOperationException("A ViewStorage is read-only, copy it first");
+    }
+
+    @Override
+    public void copyTo(long from, double[] dst, int offset, int length) {
+        if(length > 0) {
+            this.checkIndex(from);
+            this.checkIndex(from + length - 1);
+        }
+        this.parent.copyTo(this.offset + from, dst, offset, length);
+    }
+
+    @Override
+    public void forEach(long from, long length, DoubleConsumer consumer) {
+        if(length > 0) {
+            this.checkIndex(from);
+            this.checkIndex(from + length - 1);
+        }
+        this.parent.forEach(this.offset + from, length, consumer);
+    }
+
+    /**
+     * The view changes, whenever the parent storage changes.
+     * @return the modifications of the parent storage
+     */
+    @Override
+    public long getModifications() {
+        return this.parent.getModifications();
+    }
+
+    /**
+     * Copies the values of the view into an ArrayStorage
+     * @return an ArrayStorage with the values
+     */
+    @Override
+    public ArrayStorage copy() {
+        if(this.length > Integer.MAX_VALUE - 8) {
+            throw new IllegalStateException("The view is too large for an ArrayStorage");
+        }
+        double[] values = new double[(int) this.length];
+        this.copyTo(0, values, 0, values.length);
+        return ArrayStorage.wrap(values, values.length);
+    }
+}